@@ -0,0 +1,117 @@
+package org.studyeasy.chess.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Fen;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
+import org.studyeasy.chess.model.Perft;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+import org.studyeasy.chess.model.Position;
+import org.studyeasy.chess.model.PositionCodec;
+import org.studyeasy.chess.model.Square;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Micro-benchmarks for the rule engine. Run with:
+//   mvn -Pbench package && java -jar target/benchmarks.jar
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    })
+    public String fen;
+
+    private Board board;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private Position from;
+    private Position to;
+    private Position whiteKing;
+    private final ByteBuffer encoded = ByteBuffer.allocate(PositionCodec.BYTES);
+    private final Board decoded = new Board();
+
+    @Setup
+    public void setup() {
+        board = Fen.parse(fen);
+
+        // Probe with the last legal move, which is a quiet one in every position here
+        int count = board.generateLegalMoves(moves);
+        from = Square.toPosition(Move.from(moves[count - 1]));
+        to = Square.toPosition(Move.to(moves[count - 1]));
+        whiteKing = Square.toPosition(Long.numberOfTrailingZeros(board.getPieceBitboard(PieceColor.WHITE, PieceType.KING)));
+    }
+
+    @Benchmark
+    public boolean isValidMove() {
+        return board.isValidMove(from, to, PieceColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isValidMoveBySquare() {
+        return board.isValidMove(Square.of(from), Square.of(to), PieceColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isSquareUnderAttack() {
+        return board.isSquareUnderAttack(whiteKing, PieceColor.BLACK);
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return board.generateLegalMoves(moves);
+    }
+
+    // movePiece followed by the takeback that keeps the position fixed between calls
+    @Benchmark
+    public long movePiece() {
+        board.movePiece(from, to);
+        long key = board.getZobristKey();
+        board.unmakeMove();
+        return key;
+    }
+
+    @Benchmark
+    public String toFen() {
+        return Fen.toFen(board);
+    }
+
+    @Benchmark
+    public void parseFen(Blackhole blackhole) {
+        blackhole.consume(Fen.parse(fen));
+    }
+
+    @Benchmark
+    public Board encodeDecode() {
+        encoded.clear();
+        PositionCodec.encode(board, encoded);
+        encoded.flip();
+        PositionCodec.decode(encoded, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long perft3() {
+        return Perft.perft(board, 3);
+    }
+}
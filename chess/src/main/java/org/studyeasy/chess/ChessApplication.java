@@ -4,11 +4,15 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import org.studyeasy.chess.ui.MainMenu;
+import org.studyeasy.chess.ui.PieceImages;
 
 public class ChessApplication extends Application {
     
     @Override
     public void start(Stage primaryStage) {
+        // Decode the piece images while the menu is up
+        PieceImages.preload();
+        
         MainMenu mainMenu = new MainMenu(primaryStage);
         Scene scene = new Scene(mainMenu, 800, 600);
         
@@ -0,0 +1,19 @@
+package org.studyeasy.chess;
+
+import javafx.application.Application;
+import org.studyeasy.chess.ai.UciEngine;
+
+import java.io.IOException;
+
+// Entry point of the jar. It is not an Application subclass, so --uci can run the
+// engine over standard input and output before anything starts the JavaFX toolkit.
+public class Launcher {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--uci")) {
+            UciEngine.main(args);
+            return;
+        }
+        Application.launch(ChessApplication.class, args);
+    }
+}
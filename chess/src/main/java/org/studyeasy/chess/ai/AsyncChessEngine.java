@@ -0,0 +1,82 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.BoardSnapshot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs engine requests on a dedicated daemon thread so callers such as the JavaFX
+// application thread never block on a search or a network round trip. Each request works
+// on its own board, built from a snapshot, and is abandoned once its deadline passes.
+public class AsyncChessEngine implements AutoCloseable {
+    // Time past the budget before a request is given up on
+    private static final long DEADLINE_GRACE_MILLIS = 250;
+
+    private final ChessEngine engine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chess-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile CompletableFuture<Integer> pending;
+
+    public AsyncChessEngine(ChessEngine engine) {
+        this.engine = engine;
+    }
+
+    // Completes with the engine's packed move (Move.NONE if it has none), or exceptionally with a TimeoutException after the
+    // deadline or a CancellationException after cancel()
+    public CompletableFuture<Integer> requestMove(Board board, List<String> moveHistory, long timeBudgetMillis) {
+        cancel();
+
+        // The snapshot is cheap to take here; the worker builds its own board from it
+        BoardSnapshot snapshot = board.snapshot();
+        List<String> history = List.copyOf(moveHistory);
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        // Set for good when the request ends early, so a cancel that beats the worker to
+        // the engine still stops this request's search as soon as it starts
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(engine.getNextPackedMove(new Board(snapshot), history, timeBudgetMillis, cancelled));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+
+        // However the request ends early, stop the engine and free the worker thread
+        result.orTimeout(timeBudgetMillis + DEADLINE_GRACE_MILLIS, TimeUnit.MILLISECONDS)
+              .whenComplete((move, error) -> {
+                  if (error != null) {
+                      cancelled.set(true);
+                      if (!task.isDone()) {
+                          engine.stop();
+                          task.cancel(true);
+                      }
+                  }
+              });
+        pending = result;
+        return result;
+    }
+
+    public void cancel() {
+        CompletableFuture<Integer> request = pending;
+        if (request != null) {
+            request.cancel(true);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+        engine.close();
+    }
+}
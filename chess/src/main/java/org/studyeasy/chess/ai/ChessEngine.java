@@ -0,0 +1,46 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.Position;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A source of moves for the AI side. Returns {from, to}, or null when no move could be found.
+public interface ChessEngine {
+    Position[] getNextMove(Board board, List<String> moveHistory);
+
+    // Same, for callers that know how long the move may take; engines without a time
+    // budget of their own ignore it
+    default Position[] getNextMove(Board board, List<String> moveHistory, long timeBudgetMillis) {
+        return getNextMove(board, moveHistory);
+    }
+
+    // The move packed as in Move, keeping the promotion piece, or Move.NONE. Engines that
+    // only name the squares promote to a queen; those that choose the piece override this.
+    default int getNextPackedMove(Board board, List<String> moveHistory, long timeBudgetMillis) {
+        Position[] move = getNextMove(board, moveHistory, timeBudgetMillis);
+        if (move == null || move.length != 2) {
+            return Move.NONE;
+        }
+        return board.findLegalMove(move[0], move[1]);
+    }
+
+    // Same, for a request that is cancelled by setting the flag (followed by stop()). The
+    // flag also covers a cancel that arrives before the engine has started on the request.
+    default int getNextPackedMove(Board board, List<String> moveHistory, long timeBudgetMillis, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            return Move.NONE;
+        }
+        return getNextPackedMove(board, moveHistory, timeBudgetMillis);
+    }
+
+    // Ask a move request in progress on another thread to return as soon as it can
+    default void stop() {
+    }
+
+    // Release threads and connections once the engine is no longer needed
+    default void close() {
+    }
+}
@@ -0,0 +1,129 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+
+// Static evaluation in centipawns from the side to move's point of view: material plus
+// piece-square tables, with the king table blended from middlegame to endgame.
+final class Evaluator {
+    // Indexed by PieceType ordinal: PAWN, ROOK, KNIGHT, BISHOP, QUEEN, KING
+    static final int[] PIECE_VALUES = {100, 500, 320, 330, 900, 20000};
+
+    // Contribution of each piece type to the game phase (24 = all pieces on the board)
+    private static final int[] PHASE_WEIGHTS = {0, 2, 1, 1, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    // Tables are written as seen from white's side, rank 8 first
+    private static final int[] PAWN_TABLE = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+         5,  5, 10, 25, 25, 10,  5,  5,
+         0,  0,  0, 20, 20,  0,  0,  0,
+         5, -5,-10,  0,  0,-10, -5,  5,
+         5, 10, 10,-20,-20, 10, 10,  5,
+         0,  0,  0,  0,  0,  0,  0,  0
+    };
+    private static final int[] KNIGHT_TABLE = {
+        -50,-40,-30,-30,-30,-30,-40,-50,
+        -40,-20,  0,  0,  0,  0,-20,-40,
+        -30,  0, 10, 15, 15, 10,  0,-30,
+        -30,  5, 15, 20, 20, 15,  5,-30,
+        -30,  0, 15, 20, 20, 15,  0,-30,
+        -30,  5, 10, 15, 15, 10,  5,-30,
+        -40,-20,  0,  5,  5,  0,-20,-40,
+        -50,-40,-30,-30,-30,-30,-40,-50
+    };
+    private static final int[] BISHOP_TABLE = {
+        -20,-10,-10,-10,-10,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5, 10, 10,  5,  0,-10,
+        -10,  5,  5, 10, 10,  5,  5,-10,
+        -10,  0, 10, 10, 10, 10,  0,-10,
+        -10, 10, 10, 10, 10, 10, 10,-10,
+        -10,  5,  0,  0,  0,  0,  5,-10,
+        -20,-10,-10,-10,-10,-10,-10,-20
+    };
+    private static final int[] ROOK_TABLE = {
+          0,  0,  0,  0,  0,  0,  0,  0,
+          5, 10, 10, 10, 10, 10, 10,  5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+         -5,  0,  0,  0,  0,  0,  0, -5,
+          0,  0,  0,  5,  5,  0,  0,  0
+    };
+    private static final int[] QUEEN_TABLE = {
+        -20,-10,-10, -5, -5,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5,  5,  5,  5,  0,-10,
+         -5,  0,  5,  5,  5,  5,  0, -5,
+          0,  0,  5,  5,  5,  5,  0, -5,
+        -10,  5,  5,  5,  5,  5,  0,-10,
+        -10,  0,  5,  0,  0,  0,  0,-10,
+        -20,-10,-10, -5, -5,-10,-10,-20
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -20,-30,-30,-40,-40,-30,-30,-20,
+        -10,-20,-20,-20,-20,-20,-20,-10,
+         20, 20,  0,  0,  0,  0, 20, 20,
+         20, 30, 10,  0,  0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+        -50,-40,-30,-20,-20,-30,-40,-50,
+        -30,-20,-10,  0,  0,-10,-20,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-30,  0,  0,  0,  0,-30,-30,
+        -50,-30,-30,-30,-30,-30,-30,-50
+    };
+
+    // Indexed by PieceType ordinal; the king is handled separately
+    private static final int[][] TABLES = {PAWN_TABLE, ROOK_TABLE, KNIGHT_TABLE, BISHOP_TABLE, QUEEN_TABLE};
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Evaluator() {
+    }
+
+    static int evaluate(Board board) {
+        int score = 0;
+        int phase = 0;
+
+        for (PieceColor color : PieceColor.values()) {
+            int sign = color == PieceColor.WHITE ? 1 : -1;
+            // Squares are a1 = 0; flipping the rank maps a white piece onto the table layout
+            int flip = color == PieceColor.WHITE ? 56 : 0;
+
+            for (int type = 0; type < TABLES.length; type++) {
+                long pieces = board.getPieceBitboard(color, TYPES[type]);
+                phase += PHASE_WEIGHTS[type] * Long.bitCount(pieces);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    score += sign * (PIECE_VALUES[type] + TABLES[type][square ^ flip]);
+                }
+            }
+        }
+
+        // Blend the king tables by how much material is left
+        phase = Math.min(phase, MAX_PHASE);
+        for (PieceColor color : PieceColor.values()) {
+            int sign = color == PieceColor.WHITE ? 1 : -1;
+            int flip = color == PieceColor.WHITE ? 56 : 0;
+            int king = Long.numberOfTrailingZeros(board.getPieceBitboard(color, PieceType.KING)) ^ flip;
+            int kingScore = (KING_MIDDLEGAME_TABLE[king] * phase + KING_ENDGAME_TABLE[king] * (MAX_PHASE - phase)) / MAX_PHASE;
+            score += sign * kingScore;
+        }
+
+        return board.getSideToMove() == PieceColor.WHITE ? score : -score;
+    }
+}
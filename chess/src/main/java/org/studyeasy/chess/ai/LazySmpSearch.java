@@ -0,0 +1,115 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Lazy SMP: every thread searches the same root on its own copy of the board and they
+// share only the lock-free transposition table. Helpers start one ply deeper on odd
+// threads so they fill the table ahead of the main search; the main thread owns the
+// clock, stops the helpers when it is done and takes the deepest completed result.
+public final class LazySmpSearch {
+    private final TranspositionTable table;
+    private final int threads;
+    // Null when there are no endgame tables
+    private final Tablebases tablebases;
+    private volatile Search[] running;
+
+    public LazySmpSearch(TranspositionTable table, int threads) {
+        this(table, threads, null);
+    }
+
+    public LazySmpSearch(TranspositionTable table, int threads, Tablebases tablebases) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.table = table;
+        this.threads = threads;
+        this.tablebases = tablebases;
+    }
+
+    public SearchResult search(Board board, int maxDepth, long timeLimitMillis) {
+        return search(board, maxDepth, timeLimitMillis, null);
+    }
+
+    // Same, for a request that may be cancelled before the search is running: once the
+    // searches are published, a set flag stops them just as stop() would have
+    public SearchResult search(Board board, int maxDepth, long timeLimitMillis, AtomicBoolean cancelled) {
+        long start = System.nanoTime();
+        table.newSearch();
+
+        Search[] searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(new Board(board), table, tablebases);
+        }
+        running = searches;
+        if (cancelled != null && cancelled.get()) {
+            stop();
+        }
+
+        List<Thread> helpers = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            Search helper = searches[i];
+            int startDepth = 1 + (i & 1);
+            Thread thread = new Thread(() -> helper.findBestMove(startDepth, maxDepth, timeLimitMillis, true),
+                    "search-helper-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            helpers.add(thread);
+        }
+
+        Search main = searches[0];
+        main.findBestMove(1, maxDepth, timeLimitMillis, false);
+
+        for (int i = 1; i < threads; i++) {
+            searches[i].stop();
+        }
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        running = null;
+
+        // Prefer the deepest finished iteration, then the better score
+        Search best = main;
+        for (Search search : searches) {
+            if (search.getCompletedDepth() > best.getCompletedDepth()
+                    || (search.getCompletedDepth() == best.getCompletedDepth() && search.getBestScore() > best.getBestScore()
+                        && search.getCompletedDepth() > 0)) {
+                best = search;
+            }
+        }
+
+        long[] threadNodes = new long[threads];
+        long nodes = 0;
+        for (int i = 0; i < threads; i++) {
+            threadNodes[i] = searches[i].getNodes();
+            nodes += threadNodes[i];
+        }
+        return new SearchResult(best.getBestMove(), best.getBestScore(), best.getCompletedDepth(),
+                nodes, System.nanoTime() - start, threadNodes);
+    }
+
+    // Ends a search in progress; the result so far is returned from search()
+    public void stop() {
+        Search[] searches = running;
+        if (searches != null) {
+            for (Search search : searches) {
+                search.stop();
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
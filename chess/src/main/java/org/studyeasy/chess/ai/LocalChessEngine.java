@@ -0,0 +1,105 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.Position;
+import org.studyeasy.chess.model.Square;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// In-process engine: alpha-beta search on copies of the board, bounded by time and depth,
+// spread over one or more threads
+public class LocalChessEngine implements ChessEngine {
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 80;
+    public static final int DEFAULT_MAX_DEPTH = Search.MAX_PLY;
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final long timeLimitMillis;
+    private final int maxDepth;
+    // The transposition table inside is kept across moves, so each search starts from
+    // what the previous one learned
+    private final LazySmpSearch search;
+    // Shared by all engines; null when there are no tables
+    private final Tablebases tablebases = Tablebases.getDefault();
+
+    public LocalChessEngine() {
+        this(DEFAULT_TIME_LIMIT_MILLIS, DEFAULT_MAX_DEPTH, DEFAULT_HASH_MEGABYTES, DEFAULT_THREADS);
+    }
+
+    public LocalChessEngine(int threads) {
+        this(DEFAULT_TIME_LIMIT_MILLIS, DEFAULT_MAX_DEPTH, DEFAULT_HASH_MEGABYTES, threads);
+    }
+
+    public LocalChessEngine(long timeLimitMillis, int maxDepth, int hashMegabytes, int threads) {
+        if (timeLimitMillis <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("Time limit and depth must be positive");
+        }
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxDepth = maxDepth;
+        this.search = new LazySmpSearch(new TranspositionTable(hashMegabytes), threads, tablebases);
+    }
+
+    @Override
+    public Position[] getNextMove(Board board, List<String> moveHistory) {
+        return getNextMove(board, moveHistory, timeLimitMillis);
+    }
+
+    @Override
+    public Position[] getNextMove(Board board, List<String> moveHistory, long timeBudgetMillis) {
+        int move = getNextPackedMove(board, moveHistory, timeBudgetMillis);
+        if (move == Move.NONE) {
+            return null;
+        }
+        return new Position[]{Square.toPosition(Move.from(move)), Square.toPosition(Move.to(move))};
+    }
+
+    // The search and the tables may choose an underpromotion, which the squares alone lose
+    @Override
+    public int getNextPackedMove(Board board, List<String> moveHistory, long timeBudgetMillis) {
+        return getNextPackedMove(board, moveHistory, timeBudgetMillis, new AtomicBoolean());
+    }
+
+    @Override
+    public int getNextPackedMove(Board board, List<String> moveHistory, long timeBudgetMillis, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            return Move.NONE;
+        }
+        // With few enough pieces left the tables know the answer and no search is needed
+        if (tablebases != null) {
+            int tableMove = tablebases.bestMove(board);
+            if (tableMove != Move.NONE) {
+                System.out.println("Local engine: " + Move.toUci(tableMove) + " from tablebases");
+                return tableMove;
+            }
+        }
+        long limit = Math.max(1, Math.min(timeLimitMillis, timeBudgetMillis));
+        SearchResult result = search.search(board, maxDepth, limit, cancelled);
+        int move = result.move();
+
+        if (move == Move.NONE) {
+            System.err.println("Local engine found no legal move");
+            return Move.NONE;
+        }
+
+        TranspositionTable table = search.getTable();
+        System.out.println("Local engine: " + Move.toUci(move) + " depth " + result.depth()
+                + " score " + result.score() + " nodes " + result.nodes() + " in " + result.elapsedNanos() / 1_000_000 + " ms"
+                + String.format(" (hash hits %.1f%%, filled %.1f%%)", table.getHitRate() * 100, table.getFillRate() * 100));
+        for (int i = 0; i < search.getThreads(); i++) {
+            System.out.println("  thread " + i + ": " + result.threadNodes()[i] + " nodes, "
+                    + result.threadNodesPerSecond(i) + " nodes/s");
+        }
+        return move;
+    }
+
+    @Override
+    public void stop() {
+        search.stop();
+    }
+
+    public int getThreads() {
+        return search.getThreads();
+    }
+}
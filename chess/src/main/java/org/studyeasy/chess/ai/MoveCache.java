@@ -0,0 +1,259 @@
+package org.studyeasy.chess.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers engine answers by position so a position seen before costs no API call.
+// Entries are keyed by the position's Zobrist key (which leaves out the move counters)
+// plus a configuration key covering the model, temperature and prompt version. The most
+// recently used entries stay in memory; every new answer is also appended to a log file
+// that is replayed on startup, so the cache survives restarts. File-backed caches come
+// from open(), which hands out one instance per file, so a single channel appends to and
+// rewrites each log.
+//
+// Log layout: a 16-byte header (magic, format version, reserved) followed by
+// 28-byte records of position key, configuration key, creation time and move.
+public final class MoveCache implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private static final int MAGIC = 0x43484d43; // "CHMC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 28;
+    // Rewrite the log on startup once it holds this many times more records than it needs
+    private static final int COMPACT_FACTOR = 2;
+
+    // File-backed caches in use, by absolute path; guarded by its own lock
+    private static final Map<Path, MoveCache> OPEN = new HashMap<>();
+
+    private record Key(long position, long config) {
+    }
+
+    private record Entry(int move, long createdMillis) {
+    }
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final Path file;
+    private final Map<Key, Entry> entries;
+    private FileChannel log;
+    // Callers of open() that have not closed yet; guarded by OPEN
+    private int users;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    // A memory-only cache
+    public MoveCache(int capacity, long ttlMillis) {
+        this(capacity, ttlMillis, null);
+    }
+
+    // The cache persisted to the given file, shared with everyone else who opened it; the
+    // first opener's capacity and TTL apply. If the file cannot be used the cache keeps
+    // working in memory only. Each open() is matched by a close().
+    public static MoveCache open(int capacity, long ttlMillis, Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            MoveCache cache = OPEN.computeIfAbsent(path, p -> new MoveCache(capacity, ttlMillis, p));
+            cache.users++;
+            return cache;
+        }
+    }
+
+    private MoveCache(int capacity, long ttlMillis, Path file) {
+        if (capacity <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and TTL must be positive");
+        }
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.file = file;
+        // Access order turns the map into an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > MoveCache.this.capacity;
+            }
+        };
+        if (file != null) {
+            try {
+                openLog();
+            } catch (IOException e) {
+                System.err.println("Move cache disabled on disk (" + file + "): " + e.getMessage());
+                log = null;
+            }
+        }
+    }
+
+    // Key for everything other than the position that changes the answer
+    public static long configKey(String model, double temperature, int promptVersion) {
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        String text = model + '|' + temperature + '|' + promptVersion;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Returns the cached packed move, or 0 on a miss
+    public synchronized int get(long positionKey, long configKey) {
+        Key key = new Key(positionKey, configKey);
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry.createdMillis(), System.currentTimeMillis())) {
+            entries.remove(key);
+            expired.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return 0;
+        }
+        hits.increment();
+        return entry.move();
+    }
+
+    public synchronized void put(long positionKey, long configKey, int move) {
+        long now = System.currentTimeMillis();
+        entries.put(new Key(positionKey, configKey), new Entry(move, now));
+        if (log != null) {
+            try {
+                ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                record.putLong(positionKey).putLong(configKey).putLong(now).putInt(move).flip();
+                while (record.hasRemaining()) {
+                    log.write(record);
+                }
+            } catch (IOException e) {
+                System.err.println("Move cache write failed, continuing in memory: " + e.getMessage());
+                closeLog();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hits.reset();
+        misses.reset();
+        expired.reset();
+        if (log != null) {
+            try {
+                log.truncate(HEADER_BYTES);
+            } catch (IOException e) {
+                System.err.println("Move cache truncate failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits.sum() / lookups;
+    }
+
+    // The log is closed once the last user of a shared cache has closed it
+    @Override
+    public void close() {
+        if (file != null) {
+            synchronized (OPEN) {
+                if (--users > 0) {
+                    return;
+                }
+                OPEN.remove(file, this);
+            }
+        }
+        synchronized (this) {
+            closeLog();
+        }
+    }
+
+    private boolean isExpired(long createdMillis, long now) {
+        return now - createdMillis > ttlMillis;
+    }
+
+    // Replay the log into memory, later records overriding earlier ones. A log from another
+    // format version is discarded, as is a log that has grown well past what it holds.
+    private void openLog() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // A torn record at the end of the log from an interrupted write is ignored
+        long records = Math.max(0, (log.size() - HEADER_BYTES) / RECORD_BYTES);
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(log.size(), HEADER_BYTES + records * RECORD_BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        while (data.hasRemaining() && log.read(data) >= 0) {
+            // FileChannel.read may return fewer bytes than asked for
+        }
+        boolean valid = data.limit() >= HEADER_BYTES && data.getInt(0) == MAGIC && data.getInt(4) == FORMAT_VERSION;
+        if (valid) {
+            long now = System.currentTimeMillis();
+            for (int offset = HEADER_BYTES; offset + RECORD_BYTES <= data.limit(); offset += RECORD_BYTES) {
+                long created = data.getLong(offset + 16);
+                if (!isExpired(created, now)) {
+                    entries.put(new Key(data.getLong(offset), data.getLong(offset + 8)),
+                            new Entry(data.getInt(offset + 24), created));
+                }
+            }
+        }
+
+        if (!valid || records > (long) COMPACT_FACTOR * Math.max(entries.size(), capacity / 2)) {
+            rewriteLog();
+        } else {
+            log.truncate(HEADER_BYTES + records * RECORD_BYTES);
+            log.position(HEADER_BYTES + records * RECORD_BYTES);
+        }
+    }
+
+    // Write the header and the live entries, oldest first, then drop everything after them
+    private void rewriteLog() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + entries.size() * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(0L);
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            data.putLong(entry.getKey().position()).putLong(entry.getKey().config())
+                .putLong(entry.getValue().createdMillis()).putInt(entry.getValue().move());
+        }
+        data.flip();
+        log.position(0);
+        while (data.hasRemaining()) {
+            log.write(data);
+        }
+        log.truncate(log.position());
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Move cache close failed: " + e.getMessage());
+            }
+            log = null;
+        }
+    }
+}
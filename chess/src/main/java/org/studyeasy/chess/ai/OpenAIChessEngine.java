@@ -4,23 +4,52 @@ import  com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.service.OpenAiService;
 import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Fen;
+import org.studyeasy.chess.model.Move;
 import org.studyeasy.chess.model.Position;
-import org.studyeasy.chess.model.Piece;
-import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.Square;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
-public class OpenAIChessEngine {
+public class OpenAIChessEngine implements ChessEngine {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String MODEL = "gpt-4o";
+    private static final double TEMPERATURE = 0.2; // Lower temperature for more deterministic responses
+    // Bump when the prompt changes so answers to the old prompt are no longer used
+    private static final int PROMPT_VERSION = 2;
+    private static final long CONFIG_KEY = MoveCache.configKey(MODEL, TEMPERATURE, PROMPT_VERSION);
+    
+    public static final long DEFAULT_CACHE_TTL_MILLIS = Duration.ofDays(30).toMillis();
+    public static final Path DEFAULT_CACHE_FILE = Path.of(System.getProperty("user.home"), ".chess", "openai-moves.cache");
+    
     private final OpenAiService service;
+    private final MoveCache cache;
     
     public OpenAIChessEngine(String apiKey) {
-        this.service = new OpenAiService(apiKey);
+        this(apiKey, MoveCache.open(MoveCache.DEFAULT_CAPACITY, DEFAULT_CACHE_TTL_MILLIS, DEFAULT_CACHE_FILE));
     }
     
+    public OpenAIChessEngine(String apiKey, MoveCache cache) {
+        this.service = new OpenAiService(apiKey, REQUEST_TIMEOUT);
+        this.cache = cache;
+    }
+    
+    @Override
     public Position[] getNextMove(Board board, List<String> moveHistory) {
+        // Answers are reused by position; the key check guards against the rare collision
+        long positionKey = board.getZobristKey();
+        int cached = cache.get(positionKey, CONFIG_KEY);
+        if (cached != Move.NONE && board.findLegalMove(Move.from(cached), Move.to(cached)) == cached) {
+            System.out.println("OpenAI cache hit: " + Move.toUci(cached) + cacheStats());
+            return new Position[]{Square.toPosition(Move.from(cached)), Square.toPosition(Move.to(cached))};
+        }
+        System.out.println("OpenAI cache miss" + cacheStats());
+        
         try {
-            String boardState = convertBoardToFEN(board);
+            String boardState = Fen.toFen(board);
             String prompt = createPrompt(boardState, moveHistory);
             
             System.out.println("Sending prompt to OpenAI: " + prompt);
@@ -30,16 +59,25 @@ public class OpenAIChessEngine {
             messages.add(new ChatMessage("user", prompt));
             
             ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model("gpt-4o")
+                    .model(MODEL)
                     .messages(messages)
-                    .temperature(0.2) // Lower temperature for more deterministic responses
+                    .temperature(TEMPERATURE)
                     .maxTokens(10) // We only need a short response
                     .build();
             
             String response = service.createChatCompletion(request).getChoices().get(0).getMessage().getContent();
             System.out.println("OpenAI response: " + response);
             
-            return parseResponse(response);
+            // Only answers that name a legal move are worth remembering
+            Position[] move = parseMove(response);
+            if (move != null) {
+                int legalMove = board.findLegalMove(move[0], move[1]);
+                if (legalMove != Move.NONE) {
+                    cache.put(positionKey, CONFIG_KEY, legalMove);
+                }
+                return move;
+            }
+            return fallbackMove();
         } catch (Exception e) {
             System.err.println("Error getting AI move: " + e.getMessage());
             e.printStackTrace();
@@ -47,69 +85,19 @@ public class OpenAIChessEngine {
         }
     }
     
-    private String convertBoardToFEN(Board board) {
-        StringBuilder fen = new StringBuilder();
-        
-        // Board representation
-        for (int row = 0; row < 8; row++) {
-            int emptyCount = 0;
-            
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(new Position(row, col));
-                
-                if (piece == null) {
-                    emptyCount++;
-                } else {
-                    if (emptyCount > 0) {
-                        fen.append(emptyCount);
-                        emptyCount = 0;
-                    }
-                    
-                    char pieceChar = getPieceChar(piece);
-                    fen.append(pieceChar);
-                }
-            }
-            
-            if (emptyCount > 0) {
-                fen.append(emptyCount);
-            }
-            
-            if (row < 7) {
-                fen.append('/');
-            }
-        }
-        
-        // Add active color (always black for AI's turn)
-        fen.append(" b");
-        
-        // Add castling availability (simplified)
-        fen.append(" KQkq");
-        
-        // Add en passant target square (simplified)
-        fen.append(" -");
-        
-        // Add halfmove clock and fullmove number (simplified)
-        fen.append(" 0 1");
-        
-        return fen.toString();
+    @Override
+    public void close() {
+        service.shutdownExecutor();
+        cache.close();
     }
-
-    private char getPieceChar(Piece piece) {
-        char c = switch (piece.getType()) {
-            case PAWN -> 'p';
-            case ROOK -> 'r';
-            case KNIGHT -> 'n';
-            case BISHOP -> 'b';
-            case QUEEN -> 'q';
-            case KING -> 'k';
-        };
-        
-        // Uppercase for white pieces
-        if (piece.getColor() == PieceColor.WHITE) {
-            c = Character.toUpperCase(c);
-        }
-        
-        return c;
+    
+    public MoveCache getCache() {
+        return cache;
+    }
+    
+    private String cacheStats() {
+        return String.format(" (hits %d, misses %d, hit rate %.1f%%, %d entries)",
+                cache.getHits(), cache.getMisses(), cache.getHitRate() * 100, cache.size());
     }
     
     private String createPrompt(String boardState, List<String> moveHistory) {
@@ -128,7 +116,8 @@ public class OpenAIChessEngine {
         return prompt.toString();
     }
     
-    private Position[] parseResponse(String response) {
+    // The move named in the response, or null when there is none
+    private Position[] parseMove(String response) {
         try {
             // Extract move in format "e7e5"
             String move = response.replaceAll("[^a-h1-8]", "");
@@ -148,7 +137,10 @@ public class OpenAIChessEngine {
             System.err.println("Error parsing AI response: " + e.getMessage());
             e.printStackTrace();
         }
-        
+        return null;
+    }
+    
+    private Position[] fallbackMove() {
         System.out.println("Using fallback move e7e5");
         // Fallback to a default move (e7 to e5)
         return new Position[]{
@@ -156,4 +148,4 @@ public class OpenAIChessEngine {
             Position.fromChessNotation("e5")
         };
     }
-}
\ No newline at end of file
+}
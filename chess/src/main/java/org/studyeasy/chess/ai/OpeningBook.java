@@ -0,0 +1,240 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+import org.studyeasy.chess.pgn.PgnGame;
+import org.studyeasy.chess.pgn.PgnReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Opening moves read from a memory-mapped book file, so book positions cost no search and
+// no API call. The file uses the Polyglot layout: 16-byte big-endian entries of position
+// key, move, weight and learn data, sorted by key. Keys are Polyglot's, so books made by
+// other tools work as well as those built from PGN with main(). Lookups only read the
+// mapping, so one book serves any number of games at once.
+public final class OpeningBook {
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".chess", "book.bin");
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int MAX_WEIGHT = 0xFFFF;
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private static OpeningBook defaultBook;
+    private static boolean defaultLoaded;
+
+    private final ByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.count = entries.capacity() / ENTRY_BYTES;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a book file: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // The book at DEFAULT_FILE, opened once and shared; null if there is none
+    public static synchronized OpeningBook getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            if (Files.exists(DEFAULT_FILE)) {
+                try {
+                    defaultBook = open(DEFAULT_FILE);
+                    System.out.println("Opening book: " + defaultBook.size() + " entries from " + DEFAULT_FILE);
+                } catch (IOException e) {
+                    System.err.println("Opening book not loaded (" + DEFAULT_FILE + "): " + e.getMessage());
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // A legal book move for the position, picked at random in proportion to the entry
+    // weights, or Move.NONE when the position is not in the book
+    public int probe(Board board) {
+        long key = PolyglotKeys.key(board);
+        int first = firstEntry(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int legalCount = board.generateLegalMoves(legalMoves);
+        long total = 0;
+        for (int i = first; i < count && keyAt(i) == key; i++) {
+            if (toMove(moveAt(i), legalMoves, legalCount) != Move.NONE) {
+                total += weightAt(i);
+            }
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+
+        long pick = ThreadLocalRandom.current().nextLong(total);
+        for (int i = first; i < count && keyAt(i) == key; i++) {
+            int move = toMove(moveAt(i), legalMoves, legalCount);
+            if (move != Move.NONE) {
+                pick -= weightAt(i);
+                if (pick < 0) {
+                    return move;
+                }
+            }
+        }
+        return Move.NONE;
+    }
+
+    // Index of the first entry with the key, or -1
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < count && keyAt(low) == key ? low : -1;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    // Polyglot moves: to file and rank in bits 0-5, from file and rank in bits 6-11,
+    // promotion in bits 12-14. Castling is written as the king taking its own rook.
+    static int toBookMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastle(move)) {
+            to = to > from ? to + 1 : to - 2;
+        }
+        int promotion = 0;
+        PieceType type = Move.promotionType(move);
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == type) {
+                promotion = i;
+            }
+        }
+        return to | from << 6 | promotion << 12;
+    }
+
+    private static int toMove(int bookMove, int[] legalMoves, int legalCount) {
+        for (int i = 0; i < legalCount; i++) {
+            if (toBookMove(legalMoves[i]) == bookMove) {
+                return legalMoves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    // Build a book from the first plies of every game in a PGN file. Each move is weighted
+    // by its results for the side that played it (win 2, draw 1) and moves seen fewer than
+    // minGames times are left out.
+    public static int build(Path pgn, Path book, int plies, int minGames) throws IOException {
+        // Per position and book move: the result points and the number of games
+        Map<Long, Map<Integer, LongAdder[]>> stats = new ConcurrentHashMap<>();
+        PgnReader.Summary summary = new PgnReader(pgn).read(game -> addGame(game, plies, stats));
+        System.out.println("Read " + summary.games() + " games, skipped " + summary.skipped());
+
+        List<long[]> rows = new ArrayList<>();
+        long maxWeight = 1;
+        for (Map.Entry<Long, Map<Integer, LongAdder[]>> position : stats.entrySet()) {
+            for (Map.Entry<Integer, LongAdder[]> move : position.getValue().entrySet()) {
+                long weight = move.getValue()[0].sum();
+                long seen = move.getValue()[1].sum();
+                if (seen >= minGames && weight > 0) {
+                    rows.add(new long[]{position.getKey(), move.getKey(), weight});
+                    maxWeight = Math.max(maxWeight, weight);
+                }
+            }
+        }
+        // Sorted by key, then by weight so the main line comes first
+        rows.sort((a, b) -> a[0] != b[0] ? Long.compareUnsigned(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        ByteBuffer out = ByteBuffer.allocate(rows.size() * ENTRY_BYTES);
+        for (long[] row : rows) {
+            int weight = (int) Math.max(1, row[2] * MAX_WEIGHT / maxWeight);
+            out.putLong(row[0]).putShort((short) row[1]).putShort((short) weight).putInt(0);
+        }
+        out.flip();
+        if (book.getParent() != null) {
+            Files.createDirectories(book.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        return rows.size();
+    }
+
+    private static void addGame(PgnGame game, int plies, Map<Long, Map<Integer, LongAdder[]>> stats) {
+        Board board = game.startBoard();
+        int[] moves = game.moves();
+        for (int ply = 0; ply < Math.min(plies, moves.length); ply++) {
+            PieceColor mover = board.getSideToMove();
+            int points = switch (game.result()) {
+                case "1-0" -> mover == PieceColor.WHITE ? 2 : 0;
+                case "0-1" -> mover == PieceColor.BLACK ? 2 : 0;
+                case "1/2-1/2" -> 1;
+                default -> 0;
+            };
+            LongAdder[] counters = stats.computeIfAbsent(PolyglotKeys.key(board), k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(toBookMove(moves[ply]), k -> new LongAdder[]{new LongAdder(), new LongAdder()});
+            counters[0].add(points);
+            counters[1].increment();
+            board.makeMove(moves[ply]);
+        }
+    }
+
+    // Usage: OpeningBook games.pgn [book.bin] [plies] [minGames]
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: OpeningBook games.pgn [book.bin] [plies] [minGames]");
+            return;
+        }
+        Path book = args.length > 1 ? Path.of(args[1]) : DEFAULT_FILE;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int minGames = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        long start = System.nanoTime();
+        int entries = build(Path.of(args[0]), book, plies, minGames);
+        System.out.println("Wrote " + entries + " entries to " + book + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,424 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.EndgameTable;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+
+import java.util.Arrays;
+
+// Iterative-deepening principal variation search with quiescence, run on a private board.
+// All per-ply buffers are allocated up front, so searching allocates nothing apart from
+// endgame table probes.
+final class Search {
+    static final int MAX_PLY = 64;
+    static final int INFINITY = 30000;
+    static final int MATE = 29000;
+    // Scores at or beyond this are mates. Table mates can lie far past MAX_PLY, so the
+    // band is wider than the search can reach on its own; every mate check uses it.
+    static final int MATE_BOUND = MATE - 1000;
+
+    // Poll the clock every 2048 nodes
+    private static final int CHECK_INTERVAL = 2047;
+
+    // Move ordering bands
+    private static final int CAPTURE_SCORE = 10_000_000;
+    private static final int PROMOTION_SCORE = 9_000_000;
+    private static final int KILLER_SCORE = 8_000_000;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final Board board;
+    private final TranspositionTable table;
+    // Null when there are no endgame tables
+    private final Tablebases tablebases;
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[] history = new int[64 * 64];
+
+    private long deadline;
+    private volatile boolean stopped;
+    private long nodes;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    Search(Board board, TranspositionTable table) {
+        this(board, table, null);
+    }
+
+    Search(Board board, TranspositionTable table, Tablebases tablebases) {
+        this.board = board;
+        this.table = table;
+        this.tablebases = tablebases;
+    }
+
+    // Deepen until maxDepth or the time limit; returns the best move of the last finished
+    // iteration, or Move.NONE when there are no legal moves. Helper searches start at a
+    // staggered depth and run until stopped or out of time, since only the main search
+    // decides when the move is ready.
+    int findBestMove(int startDepth, int maxDepth, long timeLimitMillis, boolean helper) {
+        long start = System.nanoTime();
+        deadline = start + timeLimitMillis * 1_000_000L;
+        nodes = 0;
+        completedDepth = 0;
+        bestScore = 0;
+        for (int[] killer : killers) {
+            killer[0] = Move.NONE;
+            killer[1] = Move.NONE;
+        }
+        Arrays.fill(history, 0);
+
+        int[] rootMoves = moves[0];
+        int count = board.generateLegalMoves(rootMoves);
+        if (count == 0) {
+            return bestMove = Move.NONE;
+        }
+        bestMove = rootMoves[0];
+        scoreMoves(0, count, Move.NONE);
+        sortMoves(rootMoves, scores[0], count);
+
+        for (int depth = Math.min(startDepth, maxDepth); depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            int score = searchRoot(depth, count);
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            bestScore = score;
+
+            // A forced mate will not change with more depth
+            if (Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+            // Another iteration takes several times longer than this one; do not start it late
+            if (!helper && System.nanoTime() - start > (deadline - start) / 2) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    int getBestMove() {
+        return bestMove;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    int getBestScore() {
+        return bestScore;
+    }
+
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    private int searchRoot(int depth, int count) {
+        int[] rootMoves = moves[0];
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        int iterationBest = rootMoves[0];
+
+        for (int i = 0; i < count; i++) {
+            int move = rootMoves[i];
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, 1, -beta, -alpha);
+            } else {
+                score = -pvs(depth - 1, 1, -alpha - 1, -alpha);
+                if (score > alpha && !stopped) {
+                    score = -pvs(depth - 1, 1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+
+            if (stopped) {
+                return alpha;
+            }
+            if (score > alpha) {
+                alpha = score;
+                iterationBest = move;
+            }
+        }
+
+        // Search the best move first in the next iteration
+        bestMove = iterationBest;
+        for (int i = 0; i < count; i++) {
+            if (rootMoves[i] == iterationBest) {
+                System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                rootMoves[0] = iterationBest;
+                break;
+            }
+        }
+        return alpha;
+    }
+
+    private int pvs(int depth, int ply, int alpha, int beta) {
+        if ((nodes++ & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (board.getHalfmoveClock() >= 100 || board.isRepetition()) {
+            return 0;
+        }
+        // A table result is exact, whatever the remaining depth
+        if (tablebases != null && Long.bitCount(board.getOccupied()) <= tablebases.getMaxPieces()) {
+            int value = tablebases.probe(board);
+            if (value != Tablebases.UNKNOWN) {
+                return tablebaseScore(value, ply);
+            }
+        }
+
+        boolean inCheck = board.isInCheck();
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board);
+        }
+
+        // A stored result that is deep enough can settle a null-window node outright
+        long entry = table.probe(board.getZobristKey());
+        int hashMove = Move.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTableScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = board.generateLegalMoves(list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMoveHere = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            board.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                // Prove the move is worse with a null window, re-search if it is not
+                score = -pvs(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -pvs(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMoveHere = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            storeKiller(ply, move);
+                            history[(Move.from(move) << 6) | Move.to(move)] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(board.getZobristKey(), bestMoveHere, toTableScore(best, ply), depth, bound);
+        return best;
+    }
+
+    // Table distances are counted from this node, so they are added to the ply like any mate.
+    // Longer mates than the band holds are clamped to its edge so they still count as mates.
+    private static int tablebaseScore(int value, int ply) {
+        int distance = Math.min(ply + EndgameTable.mateDistance(value), MATE - MATE_BOUND);
+        if (EndgameTable.isWin(value)) {
+            return MATE - distance;
+        }
+        if (EndgameTable.isLoss(value)) {
+            return -MATE + distance;
+        }
+        return 0;
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay valid
+    // wherever the position recurs in the tree
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    // Resolve captures so the static evaluation is not taken in the middle of an exchange
+    private int quiescence(int ply, int alpha, int beta) {
+        if ((nodes++ & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board);
+        }
+
+        // In check every evasion is searched and standing pat is not an option
+        boolean inCheck = board.isInCheck();
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluator.evaluate(board);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        int[] list = moves[ply];
+        int count = board.generateLegalMoves(list, inCheck ? MoveGenerator.ALL : MoveGenerator.CAPTURES);
+        if (inCheck && count == 0) {
+            return -MATE + ply;
+        }
+        scoreMoves(ply, count, Move.NONE);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Order: best known move, captures by most valuable victim/least valuable attacker,
+    // promotions, killer moves, then the history heuristic
+    private void scoreMoves(int ply, int count, int firstMove) {
+        int[] list = moves[ply];
+        int[] values = scores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int score;
+            if (move == firstMove) {
+                score = Integer.MAX_VALUE;
+            } else if (Move.isCapture(move)) {
+                int victim = Move.isEnPassant(move) ? PieceType.PAWN.ordinal() : pieceTypeAt(Move.to(move));
+                int attacker = pieceTypeAt(Move.from(move));
+                score = CAPTURE_SCORE + Evaluator.PIECE_VALUES[victim] * 10 - Evaluator.PIECE_VALUES[attacker] / 10;
+            } else if (Move.isPromotion(move)) {
+                score = PROMOTION_SCORE + Evaluator.PIECE_VALUES[Move.promotionType(move).ordinal()];
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = Math.min(history[(Move.from(move) << 6) | Move.to(move)], KILLER_SCORE - 1);
+            }
+            values[i] = score;
+        }
+    }
+
+    // Selection sort step: bring the best remaining move to index i
+    private int pickMove(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] values = scores[ply];
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (values[j] > values[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        int move = list[bestIndex];
+        list[bestIndex] = list[i];
+        list[i] = move;
+        int value = values[bestIndex];
+        values[bestIndex] = values[i];
+        values[i] = value;
+        return move;
+    }
+
+    private static void sortMoves(int[] list, int[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            int move = list[i];
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] < value) {
+                list[j + 1] = list[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            list[j + 1] = move;
+            values[j + 1] = value;
+        }
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private int pieceTypeAt(int square) {
+        long bit = 1L << square;
+        for (PieceType type : TYPES) {
+            if (((board.getPieceBitboard(PieceColor.WHITE, type) | board.getPieceBitboard(PieceColor.BLACK, type)) & bit) != 0) {
+                return type.ordinal();
+            }
+        }
+        return PieceType.PAWN.ordinal();
+    }
+}
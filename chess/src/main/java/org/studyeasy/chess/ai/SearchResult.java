@@ -0,0 +1,12 @@
+package org.studyeasy.chess.ai;
+
+// Outcome of one engine search; threadNodes holds the node count of each search thread
+public record SearchResult(int move, int score, int depth, long nodes, long elapsedNanos, long[] threadNodes) {
+    public long nodesPerSecond() {
+        return nodes * 1_000_000_000L / Math.max(elapsedNanos, 1);
+    }
+
+    public long threadNodesPerSecond(int thread) {
+        return threadNodes[thread] * 1_000_000_000L / Math.max(elapsedNanos, 1);
+    }
+}
@@ -0,0 +1,215 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.EndgameTable;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Endgame tables from a directory, one file per material. Only the file names are read up
+// front; each table is mapped the first time a position needs it and stays mapped, so
+// unused tables cost nothing. Tables are found by their material as piece counts. Recent
+// probe results are kept by Zobrist key in a direct-mapped long[] checked the way the
+// transposition table is, since every search thread keeps returning to the same few
+// positions; probing takes no lock and allocates nothing.
+public final class Tablebases {
+    public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("user.home"), ".chess", "tablebases");
+    public static final int UNKNOWN = -1;
+
+    // Cache slots, a power of two, two longs each: the key XOR the data, then the data
+    private static final int CACHE_ENTRIES = 1 << 15;
+    // Plies without a capture or pawn move after which the game is drawn
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    private static Tablebases defaultTablebases;
+    private static boolean defaultLoaded;
+
+    private final Path directory;
+    // Sorted material keys of the table files, and the names in the same order
+    private final long[] materialKeys;
+    private final String[] materials;
+    private final int maxPieces;
+    // Null until first needed; empty once a table has failed to open, so it is not retried
+    private final AtomicReferenceArray<Optional<EndgameTable>> tables;
+    // Data is the value + 2, so an empty slot (0) never matches
+    private final long[] cache = new long[2 * CACHE_ENTRIES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private Tablebases(Path directory, long[] materialKeys, String[] materials, int maxPieces) {
+        this.directory = directory;
+        this.materialKeys = materialKeys;
+        this.materials = materials;
+        this.maxPieces = maxPieces;
+        this.tables = new AtomicReferenceArray<>(materials.length);
+    }
+
+    public static Tablebases open(Path directory) throws IOException {
+        List<String> names = new ArrayList<>();
+        int maxPieces = 2;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EndgameTable.EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String material = name.substring(0, name.length() - EndgameTable.EXTENSION.length());
+                try {
+                    EndgameTable.materialKey(material);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Tablebase skipped, not a material: " + file);
+                    continue;
+                }
+                names.add(material);
+                maxPieces = Math.max(maxPieces, material.length() - 1);
+            }
+        }
+        names.sort((a, b) -> Long.compare(EndgameTable.materialKey(a), EndgameTable.materialKey(b)));
+        long[] keys = new long[names.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = EndgameTable.materialKey(names.get(i));
+        }
+        return new Tablebases(directory, keys, names.toArray(new String[0]), maxPieces);
+    }
+
+    // The tables in DEFAULT_DIRECTORY, opened once and shared; null if there are none
+    public static synchronized Tablebases getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            if (Files.isDirectory(DEFAULT_DIRECTORY)) {
+                try {
+                    Tablebases tablebases = open(DEFAULT_DIRECTORY);
+                    if (tablebases.materials.length > 0) {
+                        defaultTablebases = tablebases;
+                        System.out.println("Tablebases: " + tablebases.materials.length + " tables up to "
+                                + tablebases.maxPieces + " pieces in " + DEFAULT_DIRECTORY);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Tablebases not loaded (" + DEFAULT_DIRECTORY + "): " + e.getMessage());
+                }
+            }
+        }
+        return defaultTablebases;
+    }
+
+    // Most pieces, kings included, of any table; positions with more are never probed
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    // The EndgameTable value of the position for the side to move, or UNKNOWN
+    public int probe(Board board) {
+        if (Long.bitCount(board.getOccupied()) > maxPieces) {
+            return UNKNOWN;
+        }
+        long key = board.getZobristKey();
+        int slot = (int) (key & (CACHE_ENTRIES - 1)) * 2;
+        long data = cache[slot + 1];
+        if ((cache[slot] ^ data) == key && data != 0) {
+            hits.increment();
+            return (int) data - 2;
+        }
+        misses.increment();
+
+        int value = lookup(board);
+        // Two plain writes; a reader that sees only one of them rejects the slot
+        data = value + 2L;
+        cache[slot] = key ^ data;
+        cache[slot + 1] = data;
+        return value;
+    }
+
+    private int lookup(Board board) {
+        long material = EndgameTable.materialKey(board);
+        // Bare kings need no table
+        if (material == 0) {
+            return board.getCastlingRights() == 0 ? EndgameTable.DRAW : UNKNOWN;
+        }
+        int index = Arrays.binarySearch(materialKeys, material);
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        Optional<EndgameTable> table = tables.get(index);
+        if (table == null) {
+            table = load(index);
+        }
+        return table.isPresent() ? table.get().probe(board) : UNKNOWN;
+    }
+
+    private synchronized Optional<EndgameTable> load(int index) {
+        Optional<EndgameTable> table = tables.get(index);
+        if (table != null) {
+            return table;
+        }
+        Path file = directory.resolve(materials[index] + EndgameTable.EXTENSION);
+        try {
+            table = Optional.of(EndgameTable.open(file));
+        } catch (IOException e) {
+            System.err.println("Tablebase not loaded (" + file + "): " + e.getMessage());
+            table = Optional.empty();
+        }
+        tables.set(index, table);
+        return table;
+    }
+
+    // The move that wins fastest, else one that holds the draw, else the one that loses
+    // slowest; Move.NONE if the position or any position after a legal move is unknown.
+    // The tables count moves to mate and know nothing of the fifty-move rule, so a win the
+    // clock would cut short ranks below one that mates in time, and a capture or pawn move
+    // that restarts the clock is preferred among those.
+    public int bestMove(Board board) {
+        if (probe(board) == UNKNOWN) {
+            return Move.NONE;
+        }
+        Board copy = new Board(board);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = copy.generateLegalMoves(moves);
+        int best = Move.NONE;
+        long bestRank = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            copy.makeMove(moves[i]);
+            int value = probe(copy);
+            int halfmoveClock = copy.getHalfmoveClock();
+            copy.unmakeMove();
+            if (value == UNKNOWN) {
+                return Move.NONE;
+            }
+            long rank = rank(value, halfmoveClock);
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    // Higher is better for the side that moved. The value is the opponent's: their loss
+    // is our win one ply later.
+    private static long rank(int value, int halfmoveClock) {
+        if (EndgameTable.isLoss(value)) {
+            int distance = EndgameTable.mateDistance(value);
+            long tier = halfmoveClock + distance <= FIFTY_MOVE_PLIES ? 3 : halfmoveClock == 0 ? 2 : 1;
+            return (tier << 32) - distance;
+        }
+        if (EndgameTable.isWin(value)) {
+            return -(1L << 32) + EndgameTable.mateDistance(value);
+        }
+        return 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,155 @@
+package org.studyeasy.chess.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size hash table of search results in a flat long[], two longs per entry:
+// the key XOR the data, then the data. A reader accepts an entry only if the two XOR back
+// to its key, so entries torn by concurrent writers are rejected without any locking.
+// Entries sit in buckets of four (one 64-byte cache line); a new result replaces the
+// shallowest, oldest entry of its bucket.
+//
+// Data layout: bits 0-19 move, 20-35 score, 36-43 depth, 44-45 bound, 46-53 age.
+public final class TranspositionTable {
+    public static final int UPPER_BOUND = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_LONGS = ENTRY_LONGS * BUCKET_ENTRIES;
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+
+    private final long[] table;
+    private final long bucketMask;
+    private int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Hash size must be positive: " + megabytes);
+        }
+        // Round the bucket count down to a power of two so a mask picks the bucket
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        if (buckets * BUCKET_LONGS > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Hash size too large: " + megabytes + " MB");
+        }
+        table = new long[(int) (buckets * BUCKET_LONGS)];
+        bucketMask = buckets - 1;
+    }
+
+    // Returns the entry's data, or 0 when the position is not stored
+    public long probe(long key) {
+        probes.increment();
+        int bucket = bucketIndex(key);
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int bucket = bucketIndex(key);
+        int replace = bucket;
+        int replaceWorth = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += ENTRY_LONGS) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key || data == 0) {
+                // Same position or an empty slot; keep a known move if the new result has none
+                if (move == 0 && data != 0) {
+                    move = move(data);
+                }
+                replace = i;
+                break;
+            }
+            // Entries from earlier searches lose value quickly against deeper ones
+            int worth = depth(data) - 8 * ((age - age(data)) & 0xFF);
+            if (worth < replaceWorth) {
+                replaceWorth = worth;
+                replace = i;
+            }
+        }
+
+        long data = (move & 0xFFFFFL)
+                | ((score & 0xFFFFL) << 20)
+                | ((long) (depth & 0xFF) << 36)
+                | ((long) bound << 44)
+                | ((long) (age & 0xFF) << 46);
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    // Start a new search: older entries become preferred victims
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        probes.reset();
+        hits.reset();
+        age = 0;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 20);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 36) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 44) & 3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 46) & 0xFF);
+    }
+
+    private int bucketIndex(long key) {
+        // The low bits pick the bucket; the full key is checked on read
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0.0 : (double) hits.sum() / probeCount;
+    }
+
+    // Share of entries written by the current search, sampled over the first 1000 entries
+    public double getFillRate() {
+        int sampled = Math.min(1000, table.length / ENTRY_LONGS);
+        int filled = 0;
+        for (int entry = 0; entry < sampled; entry++) {
+            long data = table[entry * ENTRY_LONGS + 1];
+            if (data != 0 && age(data) == age) {
+                filled++;
+            }
+        }
+        return (double) filled / sampled;
+    }
+
+    public int getSizeMegabytes() {
+        return (int) ((long) table.length * Long.BYTES / (1024 * 1024));
+    }
+}
@@ -0,0 +1,369 @@
+package org.studyeasy.chess.ai;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
+import org.studyeasy.chess.model.PieceColor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// The local engine without a display, speaking UCI over standard input and output for
+// GUIs, tournament runners and servers. Commands are read on the calling thread while
+// each search runs on a thread of its own, so stop, ponderhit and isready are answered
+// at once. Everything else the program prints goes to standard error.
+public final class UciEngine {
+    private static final String NAME = "StudyEasy Chess";
+    private static final String AUTHOR = "StudyEasy";
+    private static final int MAX_HASH_MEGABYTES = 8192;
+    private static final int MAX_THREADS = 256;
+    // "go infinite" and pondering search until told otherwise
+    private static final long INFINITE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    // Spread the remaining time over this many moves when the GUI does not say
+    private static final int MOVES_TO_GO = 30;
+    private static final long MIN_MOVE_MILLIS = 10;
+    // Left on the clock for the GUI and the pipe
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    // One "go": the search thread and what it needs to finish
+    private static final class Go {
+        private final LazySmpSearch search;
+        private final long budgetMillis;
+        // Counted down by stop or ponderhit; until then an infinite or pondering search
+        // holds its best move back, as the protocol requires
+        private final CountDownLatch released;
+        private Thread thread;
+
+        Go(LazySmpSearch search, long budgetMillis, boolean holdResult) {
+            this.search = search;
+            this.budgetMillis = budgetMillis;
+            this.released = new CountDownLatch(holdResult ? 1 : 0);
+        }
+    }
+
+    private final BufferedReader input;
+    private final PrintStream output;
+    private final Tablebases tablebases = Tablebases.getDefault();
+    // Ends pondering searches once the move has been played
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int hashMegabytes = LocalChessEngine.DEFAULT_HASH_MEGABYTES;
+    private int threads = 1;
+    // Rebuilt on the next "go" after Hash or Threads change
+    private LazySmpSearch search;
+    private Board board = new Board();
+    private volatile Go current;
+
+    public UciEngine(InputStream input, PrintStream output) {
+        this.input = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.output = output;
+    }
+
+    // Reads commands until "quit" or the end of input
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("quit")) {
+                    break;
+                }
+                try {
+                    handle(tokens);
+                } catch (IllegalArgumentException e) {
+                    send("info string " + e.getMessage());
+                }
+            }
+        } finally {
+            stopSearch();
+            timer.shutdownNow();
+        }
+    }
+
+    private void handle(String[] tokens) {
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + LocalChessEngine.DEFAULT_HASH_MEGABYTES
+                        + " min 1 max " + MAX_HASH_MEGABYTES);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "setoption" -> setOption(tokens);
+            case "ucinewgame" -> {
+                stopSearch();
+                if (search != null) {
+                    search.getTable().clear();
+                }
+            }
+            case "position" -> board = parsePosition(tokens);
+            case "go" -> go(tokens);
+            case "stop" -> stopSearch();
+            case "ponderhit" -> ponderHit();
+            case "", "debug", "register" -> {
+                // Nothing to do
+            }
+            default -> System.err.println("Unknown UCI command: " + String.join(" ", tokens));
+        }
+    }
+
+    // setoption name <name> value <value>; names may contain spaces
+    private void setOption(String[] tokens) {
+        StringBuilder name = new StringBuilder();
+        String value = null;
+        for (int i = 2; i < tokens.length; i++) {
+            if (tokens[i].equals("value")) {
+                value = i + 1 < tokens.length ? tokens[i + 1] : "";
+                break;
+            }
+            name.append(name.length() > 0 ? " " : "").append(tokens[i]);
+        }
+        switch (name.toString().toLowerCase()) {
+            case "hash" -> {
+                hashMegabytes = parseOption(value, 1, MAX_HASH_MEGABYTES);
+                search = null;
+            }
+            case "threads" -> {
+                threads = parseOption(value, 1, MAX_THREADS);
+                search = null;
+            }
+            case "ponder" -> {
+                // Pondering follows "go ponder" whatever this says
+            }
+            default -> throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    private static int parseOption(String value, int min, int max) {
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    private static Board parsePosition(String[] tokens) {
+        int i = 1;
+        Board position;
+        if (i < tokens.length && tokens[i].equals("startpos")) {
+            position = new Board();
+            i++;
+        } else if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            position = Board.fromFen(fen.toString().trim());
+        } else {
+            throw new IllegalArgumentException("Expected startpos or fen: " + String.join(" ", tokens));
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            for (i++; i < tokens.length; i++) {
+                position.makeMove(findMove(position, tokens[i], moves));
+            }
+        }
+        return position;
+    }
+
+    private static int findMove(Board position, String uci, int[] moves) {
+        int count = position.generateLegalMoves(moves);
+        for (int j = 0; j < count; j++) {
+            if (Move.toUci(moves[j]).equals(uci)) {
+                return moves[j];
+            }
+        }
+        throw new IllegalArgumentException("Illegal move: " + uci);
+    }
+
+    // go [ponder] [wtime t] [btime t] [winc t] [binc t] [movestogo n] [depth n] [movetime t] [infinite]
+    private void go(String[] tokens) {
+        stopSearch();
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        int depth = Search.MAX_PLY;
+        long moveTime = -1;
+        boolean infinite = false;
+        boolean ponder = false;
+        boolean white = board.getSideToMove() == PieceColor.WHITE;
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "infinite" -> infinite = true;
+                case "ponder" -> ponder = true;
+                case "wtime", "btime", "winc", "binc", "movestogo", "depth", "movetime", "nodes", "mate" -> {
+                    if (i + 1 >= tokens.length) {
+                        throw new IllegalArgumentException("Missing value for " + tokens[i]);
+                    }
+                    long value = parseNumber(tokens[++i]);
+                    switch (tokens[i - 1]) {
+                        case "wtime" -> time = white ? value : time;
+                        case "btime" -> time = white ? time : value;
+                        case "winc" -> increment = white ? value : increment;
+                        case "binc" -> increment = white ? increment : value;
+                        case "movestogo" -> movesToGo = (int) value;
+                        case "depth" -> depth = (int) Math.max(1, Math.min(Search.MAX_PLY, value));
+                        case "movetime" -> moveTime = value;
+                        default -> {
+                            // Node and mate limits are not supported; the clock still applies
+                        }
+                    }
+                }
+                default -> {
+                    // searchmoves and anything unknown are ignored
+                }
+            }
+        }
+
+        long budget = moveTime >= 0 ? Math.max(1, moveTime - MOVE_OVERHEAD_MILLIS)
+                : time >= 0 ? budgetMillis(time, increment, movesToGo) : INFINITE_MILLIS;
+        if (search == null) {
+            search = new LazySmpSearch(new TranspositionTable(hashMegabytes), threads, tablebases);
+        }
+        Go go = new Go(search, budget, infinite || ponder);
+        Board position = new Board(board);
+        int maxDepth = depth;
+        long limit = infinite || ponder ? INFINITE_MILLIS : budget;
+        go.thread = new Thread(() -> runSearch(go, position, maxDepth, limit), "uci-search");
+        go.thread.setDaemon(true);
+        current = go;
+        go.thread.start();
+    }
+
+    private static long parseNumber(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    // Same split as the GUI: an even share of the clock plus most of the increment, never
+    // more than half of what is left
+    private static long budgetMillis(long time, long increment, int movesToGo) {
+        long remaining = Math.max(1, time - MOVE_OVERHEAD_MILLIS);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, MOVES_TO_GO) : MOVES_TO_GO;
+        return Math.max(1, Math.min(remaining / 2, Math.max(MIN_MOVE_MILLIS, remaining / moves + increment * 3 / 4)));
+    }
+
+    private void runSearch(Go go, Board position, int maxDepth, long limit) {
+        int move = tablebases != null ? tablebases.bestMove(position) : Move.NONE;
+        SearchResult result = null;
+        if (move == Move.NONE) {
+            result = go.search.search(position, maxDepth, limit);
+            move = result.move();
+        }
+        try {
+            go.released.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (move == Move.NONE) {
+            // Mated or stalemated; the protocol still wants an answer
+            send("info depth 0 score " + (position.isInCheck() ? "mate 0" : "cp 0"));
+            send("bestmove 0000");
+            return;
+        }
+        if (result != null) {
+            TranspositionTable table = go.search.getTable();
+            send("info depth " + result.depth() + " score " + score(result.score()) + " nodes " + result.nodes()
+                    + " nps " + result.nodesPerSecond() + " time " + result.elapsedNanos() / 1_000_000
+                    + " hashfull " + Math.round(table.getFillRate() * 1000) + " pv " + Move.toUci(move));
+        } else {
+            send("info string tablebase move");
+        }
+        int reply = expectedReply(go.search.getTable(), position, move);
+        send("bestmove " + Move.toUci(move) + (reply != Move.NONE ? " ponder " + Move.toUci(reply) : ""));
+    }
+
+    private static String score(int score) {
+        if (score >= Search.MATE_BOUND) {
+            return "mate " + (Search.MATE - score + 1) / 2;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return "mate -" + (Search.MATE + score) / 2;
+        }
+        return "cp " + score;
+    }
+
+    // The stored best reply after the move, if it is legal there, to ponder on
+    private static int expectedReply(TranspositionTable table, Board position, int move) {
+        position.makeMove(move);
+        long entry = table.probe(position.getZobristKey());
+        if (entry != 0) {
+            int reply = TranspositionTable.move(entry);
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = position.generateLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (moves[i] == reply) {
+                    return reply;
+                }
+            }
+        }
+        return Move.NONE;
+    }
+
+    // The opponent played the move pondered on: the search goes on, now against the clock
+    private void ponderHit() {
+        Go go = current;
+        if (go == null || go.released.getCount() == 0) {
+            return;
+        }
+        timer.schedule(() -> {
+            if (current == go) {
+                go.search.stop();
+            }
+        }, go.budgetMillis, TimeUnit.MILLISECONDS);
+        go.released.countDown();
+    }
+
+    // Ends the current search, if any, and waits for its best move to be sent. A stop that
+    // arrives before the search has properly started is repeated until it takes.
+    private void stopSearch() {
+        Go go = current;
+        if (go == null) {
+            return;
+        }
+        go.released.countDown();
+        try {
+            while (go.thread.isAlive()) {
+                go.search.stop();
+                go.thread.join(1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        current = null;
+    }
+
+    private void send(String line) {
+        synchronized (output) {
+            output.println(line);
+            output.flush();
+        }
+    }
+
+    // Standard output is kept for the protocol; anything else printed goes to standard error
+    public static void main(String[] args) throws IOException {
+        PrintStream protocol = System.out;
+        System.setOut(System.err);
+        new UciEngine(System.in, protocol).run();
+    }
+}
@@ -0,0 +1,144 @@
+package org.studyeasy.chess.model;
+
+// Bitboard masks and attack sets, using the a1 = 0 square layout from Square.
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_FILE_A = ~FILE_A;
+    private static final long NOT_FILE_H = ~FILE_H;
+    private static final long NOT_FILE_AB = ~(FILE_A | (FILE_A << 1));
+    private static final long NOT_FILE_GH = ~(FILE_H | (FILE_H >>> 1));
+
+    // {file step, rank step}; the first four point towards higher squares, the rest towards
+    // lower ones, which decides how the nearest blocker on a ray is found
+    private static final int[][] DIRECTIONS = {
+        {1, 0}, {0, 1}, {1, 1}, {-1, 1}, {-1, 0}, {0, -1}, {-1, -1}, {1, -1}
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    // Squares from each square to the board edge, by direction
+    private static final long[][] RAYS = new long[8][64];
+
+    // Squares strictly between two aligned squares, and the whole line through them
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long b = 1L << square;
+            KNIGHT_ATTACKS[square] = ((b << 17) & NOT_FILE_A) | ((b << 15) & NOT_FILE_H)
+                    | ((b << 10) & NOT_FILE_AB) | ((b << 6) & NOT_FILE_GH)
+                    | ((b >>> 17) & NOT_FILE_H) | ((b >>> 15) & NOT_FILE_A)
+                    | ((b >>> 10) & NOT_FILE_GH) | ((b >>> 6) & NOT_FILE_AB);
+            long sideways = ((b << 1) & NOT_FILE_A) | ((b >>> 1) & NOT_FILE_H);
+            long row = b | sideways;
+            KING_ATTACKS[square] = sideways | (row << 8) | (row >>> 8);
+            PAWN_ATTACKS[0][square] = ((b << 9) & NOT_FILE_A) | ((b << 7) & NOT_FILE_H);
+            PAWN_ATTACKS[1][square] = ((b >>> 7) & NOT_FILE_A) | ((b >>> 9) & NOT_FILE_H);
+            for (int direction = 0; direction < 8; direction++) {
+                RAYS[direction][square] = ray(square, DIRECTIONS[direction][0], DIRECTIONS[direction][1]);
+            }
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : DIRECTIONS) {
+                initLines(from, direction);
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static void initLines(int from, int[] direction) {
+        long ray = ray(from, direction[0], direction[1]);
+        long backRay = ray(from, -direction[0], -direction[1]);
+        long between = 0L;
+        int file = Square.file(from) + direction[0];
+        int rank = Square.rank(from) + direction[1];
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            int to = (rank << 3) | file;
+            BETWEEN[from * 64 + to] = between;
+            LINE[from * 64 + to] = ray | backRay | (1L << from);
+            between |= 1L << to;
+            file += direction[0];
+            rank += direction[1];
+        }
+    }
+
+    private static long ray(int from, int fileStep, int rankStep) {
+        long ray = 0L;
+        int file = Square.file(from) + fileStep;
+        int rank = Square.rank(from) + rankStep;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            ray |= 1L << ((rank << 3) | file);
+            file += fileStep;
+            rank += rankStep;
+        }
+        return ray;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    // Squares a pawn of the given color (PieceColor ordinal) attacks from the square
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return Magics.rookAttacks(square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return Magics.bishopAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return Magics.rookAttacks(square, occupied) | Magics.bishopAttacks(square, occupied);
+    }
+
+    // Ray-walking versions, used to build the magic tables
+    static long rayRookAttacks(int square, long occupied) {
+        return rayAttacks(0, square, occupied) | rayAttacks(1, square, occupied)
+                | rayAttacks(4, square, occupied) | rayAttacks(5, square, occupied);
+    }
+
+    static long rayBishopAttacks(int square, long occupied) {
+        return rayAttacks(2, square, occupied) | rayAttacks(3, square, occupied)
+                | rayAttacks(6, square, occupied) | rayAttacks(7, square, occupied);
+    }
+
+    // The ray up to and including its nearest blocker: everything beyond the blocker is the
+    // blocker's own ray in the same direction
+    private static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            int blocker = direction < 4
+                    ? Long.numberOfTrailingZeros(blockers)
+                    : 63 - Long.numberOfLeadingZeros(blockers);
+            ray ^= RAYS[direction][blocker];
+        }
+        return ray;
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from * 64 + to];
+    }
+
+    public static long line(int from, int to) {
+        return LINE[from * 64 + to];
+    }
+}
@@ -1,10 +1,142 @@
 package org.studyeasy.chess.model;
 
+import java.util.Arrays;
+
 public class Board {
-    private final Piece[][] squares = new Piece[8][8];
+    // Castling right flags, combined into a single int
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+    
+    private static final PieceColor[] COLORS = PieceColor.values();
+    
+    private static final int UNDO_CAPACITY = 1024;
+    private static final int UNDO_MASK = UNDO_CAPACITY - 1;
+    
+    // Rights that survive a move touching each square (king and rook home squares clear theirs)
+    private static final int[] CASTLING_MASK = new int[64];
+    
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[Square.of(7, 4)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[Square.of(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[Square.of(7, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[Square.of(0, 4)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[Square.of(0, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[Square.of(0, 0)] &= ~BLACK_QUEENSIDE;
+    }
+    
+    // Bitboard core: one set per colored piece type, plus occupancy masks
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorOccupancy = new long[2];
+    private long occupied;
+    
+    // Game state kept as primitives
+    private int sideToMove = PieceColor.WHITE.ordinal();
+    private int castlingRights = ALL_CASTLING;
+    private int enPassantSquare = Square.NONE;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    
+    // Zobrist key, updated incrementally as pieces and state change
+    private long hash;
+    
+    // Piece objects handed out by getPiece, indexed by square
+    private final Piece[] mailbox = new Piece[64];
+    
+    // Undo stack for makeMove/unmakeMove, preallocated and used as a ring so that long
+    // games only lose the ability to take back their oldest moves
+    private final int[] undoMoves = new int[UNDO_CAPACITY];
+    private final Piece[] undoMovedPieces = new Piece[UNDO_CAPACITY];
+    private final Piece[] undoCapturedPieces = new Piece[UNDO_CAPACITY];
+    private final int[] undoCastlingRights = new int[UNDO_CAPACITY];
+    private final int[] undoEnPassantSquares = new int[UNDO_CAPACITY];
+    private final int[] undoHalfmoveClocks = new int[UNDO_CAPACITY];
+    // Keys of earlier positions, which double as the repetition history
+    private final long[] undoHashes = new long[UNDO_CAPACITY];
+    private int undoTop;
+    private int undoAvailable;
+    // Entries of undoHashes that are real history; a board rebuilt from a snapshot has
+    // the keys but no moves to take back
+    private int historyAvailable;
+    
+    // Scratch space for move lookups on this board
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
     
     public Board() {
         initializeBoard();
+        hash = computeHash();
+    }
+    
+    // Copy of the current position and its undo history; pieces are shared flyweights
+    public Board(Board other) {
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorOccupancy, 0, colorOccupancy, 0, colorOccupancy.length);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        hash = other.hash;
+        
+        // The history carries repetition detection over to the copy
+        System.arraycopy(other.undoMoves, 0, undoMoves, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoMovedPieces, 0, undoMovedPieces, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoCapturedPieces, 0, undoCapturedPieces, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoCastlingRights, 0, undoCastlingRights, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoEnPassantSquares, 0, undoEnPassantSquares, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoHalfmoveClocks, 0, undoHalfmoveClocks, 0, UNDO_CAPACITY);
+        System.arraycopy(other.undoHashes, 0, undoHashes, 0, UNDO_CAPACITY);
+        undoTop = other.undoTop;
+        undoAvailable = other.undoAvailable;
+        historyAvailable = other.historyAvailable;
+    }
+    
+    // A playable board for the snapshot's position, carrying its repetition history but no
+    // moves to take back
+    public Board(BoardSnapshot snapshot) {
+        for (int square = 0; square < 64; square++) {
+            Piece piece = snapshot.getPiece(square);
+            if (piece != null) {
+                putPiece(square, piece);
+            }
+        }
+        sideToMove = snapshot.getSideToMove().ordinal();
+        castlingRights = snapshot.getCastlingRights();
+        enPassantSquare = snapshot.getEnPassantSquare();
+        halfmoveClock = snapshot.getHalfmoveClock();
+        fullmoveNumber = snapshot.getFullmoveNumber();
+        hash = snapshot.getZobristKey();
+        
+        long[] history = snapshot.history();
+        System.arraycopy(history, 0, undoHashes, 0, history.length);
+        undoTop = history.length;
+        historyAvailable = history.length;
+    }
+    
+    // Immutable copy of the current position for other threads to read or search from
+    public BoardSnapshot snapshot() {
+        // Only positions since the last capture or pawn move can repeat
+        int length = Math.min(halfmoveClock, historyAvailable);
+        long[] history = new long[length];
+        for (int i = 0; i < length; i++) {
+            history[i] = undoHashes[(undoTop - length + i) & UNDO_MASK];
+        }
+        return new BoardSnapshot(pieceBitboards, colorOccupancy, mailbox, sideToMove, castlingRights,
+                enPassantSquare, halfmoveClock, fullmoveNumber, hash, history);
+    }
+    
+    // A board set up from a FEN; throws IllegalArgumentException for invalid FENs
+    public static Board fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+    
+    public String toFen() {
+        return Fen.toFen(this);
     }
     
     private void initializeBoard() {
@@ -20,253 +152,443 @@ public class Board {
     private void setupPawns() {
         // Setup pawns for both sides
         for (int col = 0; col < 8; col++) {
-            squares[1][col] = createPiece(PieceType.PAWN, PieceColor.BLACK);
-            squares[6][col] = createPiece(PieceType.PAWN, PieceColor.WHITE);
+            putPiece(1, col, Piece.of(PieceColor.BLACK, PieceType.PAWN));
+            putPiece(6, col, Piece.of(PieceColor.WHITE, PieceType.PAWN));
         }
     }
     
     private void setupRooks() {
         // Setup rooks for both sides
-        squares[0][0] = createPiece(PieceType.ROOK, PieceColor.BLACK);
-        squares[0][7] = createPiece(PieceType.ROOK, PieceColor.BLACK);
-        squares[7][0] = createPiece(PieceType.ROOK, PieceColor.WHITE);
-        squares[7][7] = createPiece(PieceType.ROOK, PieceColor.WHITE);
+        putPiece(0, 0, Piece.of(PieceColor.BLACK, PieceType.ROOK));
+        putPiece(0, 7, Piece.of(PieceColor.BLACK, PieceType.ROOK));
+        putPiece(7, 0, Piece.of(PieceColor.WHITE, PieceType.ROOK));
+        putPiece(7, 7, Piece.of(PieceColor.WHITE, PieceType.ROOK));
     }
     
     private void setupKnights() {
         // Setup knights for both sides
-        squares[0][1] = createPiece(PieceType.KNIGHT, PieceColor.BLACK);
-        squares[0][6] = createPiece(PieceType.KNIGHT, PieceColor.BLACK);
-        squares[7][1] = createPiece(PieceType.KNIGHT, PieceColor.WHITE);
-        squares[7][6] = createPiece(PieceType.KNIGHT, PieceColor.WHITE);
+        putPiece(0, 1, Piece.of(PieceColor.BLACK, PieceType.KNIGHT));
+        putPiece(0, 6, Piece.of(PieceColor.BLACK, PieceType.KNIGHT));
+        putPiece(7, 1, Piece.of(PieceColor.WHITE, PieceType.KNIGHT));
+        putPiece(7, 6, Piece.of(PieceColor.WHITE, PieceType.KNIGHT));
     }
     
     private void setupBishops() {
         // Setup bishops for both sides
-        squares[0][2] = createPiece(PieceType.BISHOP, PieceColor.BLACK);
-        squares[0][5] = createPiece(PieceType.BISHOP, PieceColor.BLACK);
-        squares[7][2] = createPiece(PieceType.BISHOP, PieceColor.WHITE);
-        squares[7][5] = createPiece(PieceType.BISHOP, PieceColor.WHITE);
+        putPiece(0, 2, Piece.of(PieceColor.BLACK, PieceType.BISHOP));
+        putPiece(0, 5, Piece.of(PieceColor.BLACK, PieceType.BISHOP));
+        putPiece(7, 2, Piece.of(PieceColor.WHITE, PieceType.BISHOP));
+        putPiece(7, 5, Piece.of(PieceColor.WHITE, PieceType.BISHOP));
     }
     
     private void setupQueens() {
         // Setup queens for both sides
-        squares[0][3] = createPiece(PieceType.QUEEN, PieceColor.BLACK);
-        squares[7][3] = createPiece(PieceType.QUEEN, PieceColor.WHITE);
+        putPiece(0, 3, Piece.of(PieceColor.BLACK, PieceType.QUEEN));
+        putPiece(7, 3, Piece.of(PieceColor.WHITE, PieceType.QUEEN));
     }
     
     private void setupKings() {
         // Setup kings for both sides
-        squares[0][4] = createPiece(PieceType.KING, PieceColor.BLACK);
-        squares[7][4] = createPiece(PieceType.KING, PieceColor.WHITE);
-    }
-    
-    private Piece createPiece(PieceType type, PieceColor color) {
-        return switch (type) {
-            case PAWN -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    int direction = (color == PieceColor.WHITE) ? -1 : 1;
-                    int rowDiff = to.row() - from.row();
-                    int colDiff = to.col() - from.col();
-                    
-                    // Forward movement (no capture)
-                    if (colDiff == 0) {
-                        // Single square forward
-                        if (rowDiff == direction && board.getPiece(to) == null) {
-                            return true;
-                        }
-                        
-                        // Double square forward from starting position
-                        boolean isStartingRow = (color == PieceColor.WHITE && from.row() == 6) || 
-                                               (color == PieceColor.BLACK && from.row() == 1);
-                        if (isStartingRow && rowDiff == 2 * direction && 
-                            board.getPiece(to) == null && 
-                            board.getPiece(new Position(from.row() + direction, from.col())) == null) {
-                            return true;
-                        }
-                    }
-                    
-                    // Diagonal capture
-                    if (Math.abs(colDiff) == 1 && rowDiff == direction && board.getPiece(to) != null) {
-                        return true;
-                    }
-                    
-                    return false;
-                }
-            };
-            case ROOK -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    // Rook moves horizontally or vertically
-                    if (from.row() == to.row() || from.col() == to.col()) {
-                        return isPathClear(board, from, to);
-                    }
-                    
-                    return false;
-                }
-            };
-            case KNIGHT -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    // Knight moves in an L-shape: 2 squares in one direction and 1 square perpendicular
-                    int rowDiff = Math.abs(to.row() - from.row());
-                    int colDiff = Math.abs(to.col() - from.col());
-                    
-                    return (rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2);
-                }
-            };
-            case BISHOP -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    // Bishop moves diagonally
-                    int rowDiff = Math.abs(to.row() - from.row());
-                    int colDiff = Math.abs(to.col() - from.col());
-                    
-                    if (rowDiff == colDiff) {
-                        return isPathClear(board, from, to);
-                    }
-                    
-                    return false;
-                }
-            };
-            case QUEEN -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    // Queen moves like a rook or bishop
-                    int rowDiff = Math.abs(to.row() - from.row());
-                    int colDiff = Math.abs(to.col() - from.col());
-                    
-                    // Horizontal or vertical movement (like a rook)
-                    if (from.row() == to.row() || from.col() == to.col()) {
-                        return isPathClear(board, from, to);
-                    }
-                    
-                    // Diagonal movement (like a bishop)
-                    if (rowDiff == colDiff) {
-                        return isPathClear(board, from, to);
-                    }
-                    
-                    return false;
-                }
-            };
-            case KING -> new Piece(color, type) {
-                @Override
-                public boolean isValidMove(Board board, Position from, Position to) {
-                    // Can't capture a piece of the same color
-                    if (isSameColorPiece(board, to)) {
-                        return false;
-                    }
-                    
-                    int rowDiff = Math.abs(to.row() - from.row());
-                    int colDiff = Math.abs(to.col() - from.col());
-                    
-                    // Normal king move - one square in any direction
-                    if (rowDiff <= 1 && colDiff <= 1) {
-                        return true;
-                    }
-                    
-                    // Check for castling
-                    if (rowDiff == 0 && colDiff == 2 && !hasMoved()) {
-                        // Determine if it's kingside or queenside castling
-                        boolean isKingside = to.col() > from.col();
-                        int rookCol = isKingside ? 7 : 0;
-                        Position rookPos = new Position(from.row(), rookCol);
-                        Piece rook = board.getPiece(rookPos);
-                        
-                        // Check if the rook exists and hasn't moved
-                        if (rook != null && rook.getType() == PieceType.ROOK && 
-                            rook.getColor() == color && !rook.hasMoved()) {
-                            
-                            // Check if the path between king and rook is clear
-                            int step = isKingside ? 1 : -1;
-                            for (int c = from.col() + step; c != rookCol; c += step) {
-                                if (board.getPiece(new Position(from.row(), c)) != null) {
-                                    return false;
-                                }
-                            }
-                            
-                            // Check if the king is in check or passes through check
-                            // This would require a more complex implementation to check for attacks
-                            // For simplicity, we'll skip this check for now
-                            
-                            return true;
-                        }
-                    }
-                    
-                    return false;
-                }
-            };
-        };
+        putPiece(0, 4, Piece.of(PieceColor.BLACK, PieceType.KING));
+        putPiece(7, 4, Piece.of(PieceColor.WHITE, PieceType.KING));
     }
     
     public Piece getPiece(Position position) {
         if (position.isValid()) {
-            return squares[position.row()][position.col()];
+            return mailbox[Square.of(position)];
         }
         return null;
     }
     
+    // Square-index overloads of the Position methods; these allocate nothing
+    public Piece getPiece(int square) {
+        return mailbox[square];
+    }
+    
     public void movePiece(Position from, Position to) {
         if (from.isValid() && to.isValid()) {
-            Piece piece = squares[from.row()][from.col()];
-            
-            // Handle castling
-            if (piece != null && piece.getType() == PieceType.KING && !piece.hasMoved()) {
-                int colDiff = to.col() - from.col();
-                if (Math.abs(colDiff) == 2) {
-                    // This is a castling move
-                    boolean isKingside = colDiff > 0;
-                    int rookFromCol = isKingside ? 7 : 0;
-                    int rookToCol = isKingside ? to.col() - 1 : to.col() + 1;
-                    
-                    // Move the rook
-                    Position rookFrom = new Position(from.row(), rookFromCol);
-                    Position rookTo = new Position(from.row(), rookToCol);
-                    Piece rook = squares[rookFrom.row()][rookFrom.col()];
-                    squares[rookTo.row()][rookTo.col()] = rook;
-                    squares[rookFrom.row()][rookFrom.col()] = null;
-                    
-                    if (rook != null) {
-                        rook.setMoved();
-                    }
-                }
+            movePiece(Square.of(from), Square.of(to));
+        }
+    }
+    
+    public void movePiece(int from, int to) {
+        int move = encodeMove(from, to);
+        if (move != Move.NONE) {
+            makeMove(move);
+        }
+    }
+    
+    // Work out the flags of a from/to pair from the current position, promoting to a queen
+    private int encodeMove(int from, int to) {
+        Piece piece = mailbox[from];
+        if (piece == null || from == to) {
+            return Move.NONE;
+        }
+        
+        int flags = mailbox[to] != null ? Move.CAPTURE : 0;
+        int distance = Math.abs(to - from);
+        if (piece.getType() == PieceType.PAWN) {
+            if (distance == 16) {
+                flags |= Move.DOUBLE_PUSH;
+            } else if (to == enPassantSquare && distance != 8) {
+                flags |= Move.CAPTURE | Move.EN_PASSANT;
             }
+            if (Square.rank(to) == 0 || Square.rank(to) == 7) {
+                return Move.promotion(from, to, PieceType.QUEEN, flags);
+            }
+        } else if (piece.getType() == PieceType.KING && distance == 2 && Square.rank(from) == Square.rank(to)) {
+            flags |= Move.CASTLE;
+        }
+        return Move.of(from, to, flags);
+    }
+    
+    // Play a move produced by the generator (or encodeMove), recording what unmakeMove needs
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = mailbox[from];
+        
+        int index = undoTop & UNDO_MASK;
+        undoMoves[index] = move;
+        undoMovedPieces[index] = piece;
+        undoCastlingRights[index] = castlingRights;
+        undoEnPassantSquares[index] = enPassantSquare;
+        undoHalfmoveClocks[index] = halfmoveClock;
+        undoHashes[index] = hash;
+        undoTop++;
+        undoAvailable = Math.min(undoAvailable + 1, UNDO_CAPACITY);
+        historyAvailable = Math.min(historyAvailable + 1, UNDO_CAPACITY);
+        
+        // Take the outgoing state out of the key; pieces are hashed as they move
+        hash ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+        
+        Piece captured = null;
+        if (Move.isEnPassant(move)) {
+            // The captured pawn sits beside the moving pawn, not on the target square
+            int capturedSquare = to + (piece.getColor() == PieceColor.WHITE ? -8 : 8);
+            captured = mailbox[capturedSquare];
+            removePiece(capturedSquare);
+        } else if (Move.isCapture(move)) {
+            captured = mailbox[to];
+            removePiece(to);
+        }
+        undoCapturedPieces[index] = captured;
+        
+        // Handle castling
+        if (Move.isCastle(move)) {
+            boolean isKingside = to > from;
+            int rookFrom = isKingside ? from + 3 : from - 4;
+            int rookTo = isKingside ? to - 1 : to + 1;
             
-            // Move the piece
-            squares[to.row()][to.col()] = piece;
-            squares[from.row()][from.col()] = null;
-            
-            // Mark the piece as moved
-            if (piece != null) {
-                piece.setMoved();
+            // Move the rook
+            Piece rook = mailbox[rookFrom];
+            if (rook != null) {
+                removePiece(rookFrom);
+                putPiece(rookTo, rook);
+            }
+        }
+        
+        // Move the piece, replacing a promoting pawn
+        removePiece(from);
+        PieceType promotion = Move.promotionType(move);
+        putPiece(to, promotion != null ? Piece.of(piece.getColor(), promotion) : piece);
+        
+        updateGameState(piece, from, to, captured != null);
+        hash ^= Zobrist.castling(castlingRights) ^ enPassantKey() ^ Zobrist.side();
+    }
+    
+    // Take back the last move made with makeMove or movePiece
+    public void unmakeMove() {
+        if (undoAvailable == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        undoTop--;
+        undoAvailable--;
+        historyAvailable--;
+        int index = undoTop & UNDO_MASK;
+        
+        int move = undoMoves[index];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Piece piece = undoMovedPieces[index];
+        
+        removePiece(to);
+        putPiece(from, piece);
+        
+        if (Move.isCastle(move)) {
+            boolean isKingside = to > from;
+            int rookFrom = isKingside ? from + 3 : from - 4;
+            int rookTo = isKingside ? to - 1 : to + 1;
+            Piece rook = mailbox[rookTo];
+            if (rook != null) {
+                removePiece(rookTo);
+                putPiece(rookFrom, rook);
+            }
+        }
+        
+        Piece captured = undoCapturedPieces[index];
+        if (captured != null) {
+            int capturedSquare = Move.isEnPassant(move) 
+                    ? to + (piece.getColor() == PieceColor.WHITE ? -8 : 8) 
+                    : to;
+            putPiece(capturedSquare, captured);
+        }
+        
+        castlingRights = undoCastlingRights[index];
+        enPassantSquare = undoEnPassantSquares[index];
+        halfmoveClock = undoHalfmoveClocks[index];
+        hash = undoHashes[index];
+        if (piece.getColor() == PieceColor.BLACK) {
+            fullmoveNumber--;
+        }
+        sideToMove = piece.getColor().ordinal();
+    }
+    
+    // Whether the side to move is in check
+    public boolean isInCheck() {
+        int king = Long.numberOfTrailingZeros(bitboard(sideToMove, PieceType.KING.ordinal()));
+        return MoveGenerator.attackersTo(this, king, sideToMove ^ 1, occupied) != 0;
+    }
+    
+    public boolean isInCheck(PieceColor color) {
+        int king = Long.numberOfTrailingZeros(bitboard(color.ordinal(), PieceType.KING.ordinal()));
+        return MoveGenerator.attackersTo(this, king, color.ordinal() ^ 1, occupied) != 0;
+    }
+    
+    // Bitboard of the pieces of the given color that attack the square
+    public long attackersTo(int square, PieceColor color) {
+        return MoveGenerator.attackersTo(this, square, color.ordinal(), occupied);
+    }
+    
+    public boolean canUnmakeMove() {
+        return undoAvailable > 0;
+    }
+    
+    // The move unmakeMove would take back, or Move.NONE
+    public int getLastMove() {
+        return undoAvailable > 0 ? undoMoves[(undoTop - 1) & UNDO_MASK] : Move.NONE;
+    }
+    
+    public long getZobristKey() {
+        return hash;
+    }
+    
+    // How often the current position occurred before. Only positions since the last capture
+    // or pawn move can match, and only every other ply has the same side to move.
+    public int getRepetitionCount() {
+        int limit = Math.min(halfmoveClock, historyAvailable);
+        int count = 0;
+        for (int back = 4; back <= limit; back += 2) {
+            if (undoHashes[(undoTop - back) & UNDO_MASK] == hash) {
+                count++;
             }
         }
+        return count;
+    }
+    
+    public boolean isRepetition() {
+        return getRepetitionCount() > 0;
+    }
+    
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 2;
+    }
+    
+    // The en passant file only counts when the side to move has a pawn that can take
+    private long enPassantKey() {
+        if (enPassantSquare == Square.NONE) {
+            return 0L;
+        }
+        long pawns = bitboard(sideToMove, PieceType.PAWN.ordinal());
+        if ((Bitboards.pawnAttacks(sideToMove ^ 1, enPassantSquare) & pawns) == 0) {
+            return 0L;
+        }
+        return Zobrist.enPassant(Square.file(enPassantSquare));
+    }
+    
+    // Full recomputation of the key from the current position
+    long computeHash() {
+        long key = 0L;
+        for (int index = 0; index < pieceBitboards.length; index++) {
+            long pieces = pieceBitboards[index];
+            while (pieces != 0) {
+                key ^= Zobrist.piece(index, Long.numberOfTrailingZeros(pieces));
+                pieces &= pieces - 1;
+            }
+        }
+        key ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+        if (sideToMove == PieceColor.BLACK.ordinal()) {
+            key ^= Zobrist.side();
+        }
+        return key;
+    }
+    
+    private void updateGameState(Piece piece, int fromSquare, int toSquare, boolean isCapture) {
+        castlingRights &= CASTLING_MASK[fromSquare] & CASTLING_MASK[toSquare];
+        
+        // A double pawn push leaves the skipped square open to en passant
+        boolean isPawn = piece.getType() == PieceType.PAWN;
+        if (isPawn && Math.abs(toSquare - fromSquare) == 16) {
+            enPassantSquare = (fromSquare + toSquare) >>> 1;
+        } else {
+            enPassantSquare = Square.NONE;
+        }
+        
+        halfmoveClock = (isPawn || isCapture) ? 0 : halfmoveClock + 1;
+        if (piece.getColor() == PieceColor.BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = piece.getColor().ordinal() ^ 1;
+    }
+    
+    private void putPiece(int row, int col, Piece piece) {
+        putPiece(Square.of(row, col), piece);
+    }
+    
+    private void putPiece(int square, Piece piece) {
+        long bit = 1L << square;
+        int color = piece.getColor().ordinal();
+        int index = piece.index();
+        pieceBitboards[index] |= bit;
+        hash ^= Zobrist.piece(index, square);
+        colorOccupancy[color] |= bit;
+        occupied |= bit;
+        mailbox[square] = piece;
+    }
+    
+    private void removePiece(int square) {
+        Piece piece = mailbox[square];
+        if (piece == null) {
+            return;
+        }
+        long bit = ~(1L << square);
+        int color = piece.getColor().ordinal();
+        int index = piece.index();
+        pieceBitboards[index] &= bit;
+        hash ^= Zobrist.piece(index, square);
+        colorOccupancy[color] &= bit;
+        occupied &= bit;
+        mailbox[square] = null;
+    }
+    
+    private static int bitboardIndex(int color, int type) {
+        return color * 6 + type;
+    }
+    
+    // Empty the board and forget its history, ready for setPiece/setState
+    void clear() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        Arrays.fill(mailbox, null);
+        occupied = 0L;
+        undoTop = 0;
+        undoAvailable = 0;
+        historyAvailable = 0;
+    }
+    
+    void setPiece(int square, PieceType type, PieceColor color) {
+        removePiece(square);
+        putPiece(square, Piece.of(color, type));
+    }
+    
+    void setState(PieceColor side, int castling, int enPassant, int halfmove, int fullmove) {
+        sideToMove = side.ordinal();
+        castlingRights = castling;
+        enPassantSquare = enPassant;
+        halfmoveClock = halfmove;
+        fullmoveNumber = fullmove;
+        hash = computeHash();
+    }
+    
+    Piece pieceAt(int square) {
+        return mailbox[square];
+    }
+    
+    int sideIndex() {
+        return sideToMove;
+    }
+    
+    long bitboard(int color, int type) {
+        return pieceBitboards[bitboardIndex(color, type)];
+    }
+    
+    long occupancy(int color) {
+        return colorOccupancy[color];
+    }
+    
+    public long getPieceBitboard(PieceColor color, PieceType type) {
+        return pieceBitboards[bitboardIndex(color.ordinal(), type.ordinal())];
+    }
+    
+    public long getOccupancy(PieceColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
+    
+    public long getOccupied() {
+        return occupied;
+    }
+    
+    public PieceColor getSideToMove() {
+        return COLORS[sideToMove];
+    }
+    
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+    
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+    
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+    
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+    
+    // Legal moves of the side to move, captures and promotions first; returns the count
+    public int generateLegalMoves(int[] moves) {
+        return MoveGenerator.generate(this, moves, MoveGenerator.ALL);
+    }
+    
+    public int generateLegalMoves(int[] moves, int stages) {
+        return MoveGenerator.generate(this, moves, stages);
+    }
+    
+    // The legal move from one square to another, or Move.NONE; promotions come back as queens
+    public int findLegalMove(Position from, Position to) {
+        if (!from.isValid() || !to.isValid()) {
+            return Move.NONE;
+        }
+        
+        return findLegalMove(Square.of(from), Square.of(to));
+    }
+    
+    // Promotions come back as the queen promotion, which the generator lists first
+    public int findLegalMove(int from, int to) {
+        int count = generateLegalMoves(moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.from(move) == from && Move.to(move) == to) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+    
+    // The legal move between the squares that promotes to the given piece, or to nothing
+    // when it is null; Move.NONE if there is none
+    public int findLegalMove(int from, int to, PieceType promotion) {
+        int count = generateLegalMoves(moveBuffer);
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.from(move) == from && Move.to(move) == to && Move.promotionType(move) == promotion) {
+                return move;
+            }
+        }
+        return Move.NONE;
     }
     
     public boolean isValidMove(Position from, Position to, PieceColor currentTurn) {
@@ -274,29 +596,22 @@ public class Board {
             return false;
         }
         
-        Piece piece = getPiece(from);
+        return isValidMove(Square.of(from), Square.of(to), currentTurn);
+    }
+    
+    public boolean isValidMove(int from, int to, PieceColor currentTurn) {
+        Piece piece = mailbox[from];
         
-        if (piece == null || piece.getColor() != currentTurn) {
+        if (piece == null || piece.getColor() != currentTurn || currentTurn != getSideToMove()) {
             return false;
         }
         
-        return piece.isValidMove(this, from, to);
+        return findLegalMove(from, to) != Move.NONE;
     }
     
-    // Check if a square is under attack by any piece of the given color
+    // Check if a square is under attack by any piece of the given color. Pawns attack
+    // diagonally whether or not the square is occupied, and never straight ahead.
     public boolean isSquareUnderAttack(Position position, PieceColor attackerColor) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Position from = new Position(row, col);
-                Piece piece = getPiece(from);
-                
-                if (piece != null && piece.getColor() == attackerColor) {
-                    if (piece.isValidMove(this, from, position)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return attackersTo(Square.of(position), attackerColor) != 0;
     }
 }
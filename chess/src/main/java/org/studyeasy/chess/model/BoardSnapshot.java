@@ -0,0 +1,94 @@
+package org.studyeasy.chess.model;
+
+// Immutable copy of a position, taken with Board.snapshot(). All fields are final and
+// never written after construction, so a snapshot can be handed to any thread and read
+// without locks while the original board keeps changing. new Board(snapshot) gives a
+// private, playable board for searching from it.
+public final class BoardSnapshot {
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    private final long[] pieceBitboards;
+    private final long[] colorOccupancy;
+    private final long occupied;
+    private final Piece[] mailbox;
+    private final int sideToMove;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long hash;
+    // Keys of the positions since the last capture or pawn move, oldest first
+    private final long[] history;
+
+    BoardSnapshot(long[] pieceBitboards, long[] colorOccupancy, Piece[] mailbox, int sideToMove,
+                  int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber,
+                  long hash, long[] history) {
+        this.pieceBitboards = pieceBitboards.clone();
+        this.colorOccupancy = colorOccupancy.clone();
+        this.occupied = colorOccupancy[0] | colorOccupancy[1];
+        this.mailbox = mailbox.clone();
+        this.sideToMove = sideToMove;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.hash = hash;
+        this.history = history;
+    }
+
+    public Piece getPiece(int square) {
+        return mailbox[square];
+    }
+
+    public Piece getPiece(Position position) {
+        return position.isValid() ? mailbox[Square.of(position)] : null;
+    }
+
+    public long getPieceBitboard(PieceColor color, PieceType type) {
+        return pieceBitboards[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    public long getOccupancy(PieceColor color) {
+        return colorOccupancy[color.ordinal()];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    public PieceColor getSideToMove() {
+        return COLORS[sideToMove];
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long getZobristKey() {
+        return hash;
+    }
+
+    public Board toBoard() {
+        return new Board(this);
+    }
+
+    public String toFen() {
+        return Fen.toFen(toBoard());
+    }
+
+    long[] history() {
+        return history;
+    }
+}
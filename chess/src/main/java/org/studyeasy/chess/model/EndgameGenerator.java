@@ -0,0 +1,346 @@
+package org.studyeasy.chess.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Builds EndgameTable files by retrograde analysis. After marking mates, stalemates and
+// impossible positions, pass n finds the positions won in n plies (a move to a position
+// lost in n - 1) or lost in n plies (every move reaches a position won in fewer), until
+// nothing changes; whatever is left is a draw. Captures and promotions lead into smaller
+// tables, which are built or opened first. Each pass runs over ranges of the index on a
+// ForkJoinPool, every worker with its own board, so the move generator does all the work.
+public final class EndgameGenerator {
+    public static final int MAX_PIECES = 5;
+
+    // Values while solving: 0 until resolved, -1 for draws that are already certain (and
+    // impossible positions), -2 for positions with a move to such a draw, which can still
+    // win but never lose, otherwise the EndgameTable value
+    private static final short UNRESOLVED = 0;
+    private static final short SETTLED = -1;
+    private static final short CANNOT_LOSE = -2;
+    // Ranges bigger than this are split in two
+    private static final int SPLIT_POSITIONS = 1 << 14;
+    private static final String PROMOTIONS = "QRBN";
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    // Tables built or opened so far, by material
+    private final Map<String, EndgameTable> tables = new HashMap<>();
+
+    public EndgameGenerator(Path directory) {
+        this(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public EndgameGenerator(Path directory, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.directory = directory;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // The table for the material, such as "KBNvK", from its file in the directory if there
+    // is one and built otherwise, along with any smaller tables it leads into
+    public EndgameTable generate(String material) throws IOException {
+        if (!EndgameTable.isMaterial(material) || material.equals("KvK")) {
+            throw new IllegalArgumentException("Not a material signature: " + material);
+        }
+        if (material.length() - 1 > MAX_PIECES) {
+            throw new IllegalArgumentException("At most " + MAX_PIECES + " pieces: " + material);
+        }
+        EndgameTable table = tables.get(material);
+        if (table != null) {
+            return table;
+        }
+        Path file = directory.resolve(material + EndgameTable.EXTENSION);
+        if (Files.exists(file)) {
+            table = EndgameTable.open(file);
+        } else {
+            int longest = 0;
+            for (String smaller : smallerMaterials(material)) {
+                if (!smaller.equals("KvK")) {
+                    longest = Math.max(longest, generate(smaller).getLongestValue());
+                }
+            }
+            long start = System.nanoTime();
+            short[] values = solve(material, longest);
+            write(file, values);
+            table = EndgameTable.open(file);
+            System.out.println(material + ": " + values.length + " positions, longest mate "
+                    + Math.max(0, table.getLongestValue() - 1) + " plies, in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        tables.put(material, table);
+        return table;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Every material one capture or promotion away
+    static Set<String> smallerMaterials(String material) {
+        String[] sides = material.split("v");
+        Set<String> smaller = new LinkedHashSet<>();
+        for (int side = 0; side < 2; side++) {
+            String mover = sides[side];
+            String other = sides[1 - side];
+            for (int i = 1; i < other.length(); i++) {
+                smaller.add(EndgameTable.material(mover, remove(other, i)));
+            }
+            int pawn = mover.indexOf('P');
+            if (pawn > 0) {
+                for (int p = 0; p < PROMOTIONS.length(); p++) {
+                    String promoted = remove(mover, pawn) + PROMOTIONS.charAt(p);
+                    smaller.add(EndgameTable.material(promoted, other));
+                    for (int i = 1; i < other.length(); i++) {
+                        smaller.add(EndgameTable.material(promoted, remove(other, i)));
+                    }
+                }
+            }
+        }
+        return smaller;
+    }
+
+    private static String remove(String side, int i) {
+        return side.substring(0, i) + side.substring(i + 1);
+    }
+
+    // Values for every index of the material. Smaller tables hold values up to longest,
+    // so passes go on at least that far even when a pass finds nothing new.
+    private short[] solve(String material, int longest) {
+        EndgameTable indexer = new EndgameTable(material, 0, null);
+        if (indexer.getSize() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many positions for one table: " + material);
+        }
+        short[] values = new short[(int) indexer.getSize()];
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> new Worker(indexer, values));
+
+        pool.invoke(new Pass(workers, 0, 0, values.length, new LongAdder()));
+        for (int n = 1; ; n++) {
+            LongAdder resolved = new LongAdder();
+            pool.invoke(new Pass(workers, n, 0, values.length, resolved));
+            if (resolved.sum() == 0 && n > longest) {
+                break;
+            }
+            if (n >= Short.MAX_VALUE - 1) {
+                throw new IllegalStateException("Mate too long for the table format: " + material);
+            }
+        }
+        return values;
+    }
+
+    // One pass over a range of indexes: pass 0 settles positions without moves, later
+    // passes resolve wins (odd passes) or losses (even passes) in exactly n plies
+    @SuppressWarnings("serial")
+    private final class Pass extends RecursiveAction {
+        private final ThreadLocal<Worker> workers;
+        private final int n;
+        private final int start;
+        private final int end;
+        private final LongAdder resolved;
+
+        Pass(ThreadLocal<Worker> workers, int n, int start, int end, LongAdder resolved) {
+            this.workers = workers;
+            this.n = n;
+            this.start = start;
+            this.end = end;
+            this.resolved = resolved;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > SPLIT_POSITIONS) {
+                int middle = start + (end - start) / 2;
+                invokeAll(new Pass(workers, n, start, middle, resolved), new Pass(workers, n, middle, end, resolved));
+                return;
+            }
+            Worker worker = workers.get();
+            int count = 0;
+            boolean wins = (n & 1) != 0;
+            for (int index = start; index < end; index++) {
+                short value = worker.values[index];
+                if ((value == UNRESOLVED || (value == CANNOT_LOSE && wins))
+                        && (n == 0 ? worker.settle(index) : worker.resolve(index, n))) {
+                    count++;
+                }
+            }
+            resolved.add(count);
+        }
+    }
+
+    // Per-thread state. Values written during a pass are n + 1, which the tests for pass n
+    // never accept, so workers can read each other's writes without changing the result.
+    private final class Worker {
+        private final EndgameTable indexer;
+        private final short[] values;
+        private final Board board = new Board();
+        // One move list per level of en passant positions being looked through
+        private final int[][] moves = new int[MAX_PIECES + 1][MoveGenerator.MAX_MOVES];
+
+        Worker(EndgameTable indexer, short[] values) {
+            this.indexer = indexer;
+            this.values = values;
+        }
+
+        boolean settle(int index) {
+            if (!indexer.setPosition(index, board) || board.isInCheck(
+                    board.getSideToMove() == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE)) {
+                values[index] = SETTLED;
+            } else if (board.generateLegalMoves(moves[0]) == 0) {
+                values[index] = board.isInCheck() ? 1 : SETTLED;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        boolean resolve(int index, int n) {
+            indexer.setPosition(index, board);
+            int[] list = moves[0];
+            int count = board.generateLegalMoves(list);
+            boolean wins = (n & 1) != 0;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(list[i]);
+                int value = value(list[i], 0);
+                board.unmakeMove();
+                if (wins && value == n) {
+                    values[index] = (short) (n + 1);
+                    return true;
+                }
+                // Losing needs every move to reach a position the opponent wins by n plies
+                if (!wins && (value <= 0 || (value & 1) != 0 || value > n)) {
+                    if (value == SETTLED) {
+                        values[index] = CANNOT_LOSE;
+                    }
+                    return false;
+                }
+            }
+            if (wins) {
+                return false;
+            }
+            values[index] = (short) (n + 1);
+            return true;
+        }
+
+        // Value of the position on the board after the move, for the side now to move, as
+        // far as it is known: SETTLED for a certain draw, 0 or less when it is not a known
+        // win or loss
+        private int value(int move, int depth) {
+            if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                if (!isEnPassantPossible()) {
+                    int value = values[(int) indexer.index(board, false)];
+                    return value == CANNOT_LOSE ? UNRESOLVED : value;
+                }
+                return enPassantValue(depth + 1);
+            }
+            String material = EndgameTable.material(board);
+            if (material.equals("KvK")) {
+                return SETTLED;
+            }
+            int value = tables.get(material).probe(board);
+            return value > 0 ? value : value == EndgameTable.DRAW ? SETTLED : enPassantValue(depth + 1);
+        }
+
+        private boolean isEnPassantPossible() {
+            return board.getEnPassantSquare() != Square.NONE && indexer.index(board) < 0;
+        }
+
+        // Tables leave out positions where en passant is possible, so these are worked out
+        // from the positions after each move. A win needs a known loss among the replies and
+        // a loss needs every reply known, and both come out the same as for any position
+        // resolved in the current pass.
+        private int enPassantValue(int depth) {
+            int[] list = moves[depth];
+            int count = board.generateLegalMoves(list);
+            if (count == 0) {
+                return board.isInCheck() ? 1 : EndgameTable.DRAW;
+            }
+            int win = Integer.MAX_VALUE;
+            int loss = 0;
+            boolean allWins = true;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(list[i]);
+                int value = value(list[i], depth);
+                board.unmakeMove();
+                if (value > 0 && (value & 1) != 0) {
+                    win = Math.min(win, value + 1);
+                } else if (value > 0) {
+                    loss = Math.max(loss, value + 1);
+                } else {
+                    allWins = false;
+                }
+            }
+            return win != Integer.MAX_VALUE ? win : allWins ? loss : EndgameTable.DRAW;
+        }
+    }
+
+    // Write to a temporary file through a mapping and move it into place, so a table is
+    // never seen half written
+    private static void write(Path file, short[] values) throws IOException {
+        int longest = 1;
+        for (short value : values) {
+            longest = Math.max(longest, value);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(longest);
+        long bytes = EndgameTable.HEADER_BYTES + ((long) values.length * bits + 7) / 8 + 8;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Endgame table too large to map: " + file);
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            String material = file.getFileName().toString().replace(EndgameTable.EXTENSION, "");
+            data.putInt(0, EndgameTable.MAGIC).putInt(4, EndgameTable.FORMAT_VERSION).putInt(8, bits)
+                .putInt(12, material.length() - 1).putLong(16, values.length).putLong(24, 0L);
+            for (int index = 0; index < values.length; index++) {
+                int value = Math.max(values[index], 0);
+                if (value != 0) {
+                    long bit = (long) index * bits;
+                    int offset = EndgameTable.HEADER_BYTES + (int) (bit >>> 3);
+                    data.putLong(offset, data.getLong(offset) | ((long) value << (bit & 7)));
+                }
+            }
+            data.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Build tables into a directory, by default KQvK, KRvK, KPvK and KBNvK.
+    // Usage: EndgameGenerator <directory> [material...]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EndgameGenerator <directory> [material...]");
+            System.exit(1);
+        }
+        String[] materials = args.length > 1
+                ? Arrays.copyOfRange(args, 1, args.length)
+                : new String[]{"KQvK", "KRvK", "KPvK", "KBNvK"};
+        EndgameGenerator generator = new EndgameGenerator(Path.of(args[0]));
+        try {
+            for (String material : materials) {
+                generator.generate(material);
+            }
+        } finally {
+            generator.shutdown();
+        }
+    }
+}
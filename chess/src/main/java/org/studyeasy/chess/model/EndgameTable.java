@@ -0,0 +1,427 @@
+package org.studyeasy.chess.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Exact results for one set of material, such as KQvK, read from a memory-mapped file.
+// Each position with the stronger side's pieces listed first has one bit-packed value:
+// 0 for a draw, otherwise the distance to mate in plies plus one, so even values are
+// wins for the side to move and odd values losses (1 = checkmated). Castling rights and
+// en passant captures are not covered, and the fifty-move rule is ignored.
+//
+// Positions are indexed by side to move, the stronger king's square reduced by symmetry
+// (10 squares without pawns, 32 with), then the square of every other piece: the weaker
+// king, the stronger side's pieces and the weaker side's, each in Q R B N P order.
+//
+// File layout, little-endian: magic, format version, bits per value, piece count (ints),
+// value count (long), 8 reserved bytes, then the packed values and 8 bytes of padding.
+public final class EndgameTable {
+    public static final String EXTENSION = ".ctb";
+    public static final int DRAW = 0;
+
+    static final int MAGIC = 0x31425443; // "CTB1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    // Slot of each square in the a1-d1-d4 triangle the stronger king is moved into without pawns
+    private static final int[] TRIANGLE = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+    private static final String PIECE_ORDER = "QRBNP";
+
+    static {
+        Arrays.fill(TRIANGLE, -1);
+        int slot = 0;
+        for (int rank = 0; rank < 4; rank++) {
+            for (int file = rank; file < 4; file++) {
+                TRIANGLE_SQUARES[slot] = rank * 8 + file;
+                TRIANGLE[rank * 8 + file] = slot++;
+            }
+        }
+    }
+
+    private final String material;
+    private final PieceType[] strongPieces;
+    private final PieceType[] weakPieces;
+    private final boolean pawns;
+    // Pieces of each type, by PieceType ordinal, on either side
+    private final int[] strongCounts;
+    private final int[] weakCounts;
+    private final long size;
+    private final int bitsPerValue;
+    private final ByteBuffer values;
+
+    // Without values, the table only indexes positions
+    EndgameTable(String material, int bitsPerValue, ByteBuffer values) {
+        this.material = material;
+        String[] sides = material.split("v");
+        this.strongPieces = pieces(sides[0]);
+        this.weakPieces = pieces(sides[1]);
+        this.pawns = material.indexOf('P') >= 0;
+        this.strongCounts = counts(strongPieces);
+        this.weakCounts = counts(weakPieces);
+        this.size = size(material);
+        this.bitsPerValue = bitsPerValue;
+        this.values = values;
+    }
+
+    public static EndgameTable open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(EXTENSION)) {
+            throw new IOException("Not an endgame table: " + file);
+        }
+        String material = name.substring(0, name.length() - EXTENSION.length());
+        if (!isMaterial(material)) {
+            throw new IOException("Not a material signature: " + material);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Endgame table too large to map: " + file);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not an endgame table: " + file);
+            }
+            int bits = data.getInt(8);
+            long count = data.getLong(16);
+            if (bits < 1 || bits > 16 || count != size(material)
+                    || data.capacity() < HEADER_BYTES + (count * bits + 7) / 8 + 8) {
+                throw new IOException("Endgame table does not match its material: " + file);
+            }
+            ByteBuffer values = data.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new EndgameTable(material, bits, values);
+        }
+    }
+
+    public String getMaterial() {
+        return material;
+    }
+
+    public int getPieceCount() {
+        return strongPieces.length + weakPieces.length + 2;
+    }
+
+    // The value for the position, or -1 if the table does not cover it
+    public int probe(Board board) {
+        long index = index(board);
+        return index < 0 ? -1 : value(index);
+    }
+
+    int value(long index) {
+        long bit = index * bitsPerValue;
+        long word = values.getLong((int) (bit >>> 3));
+        return (int) (word >>> (bit & 7)) & ((1 << bitsPerValue) - 1);
+    }
+
+    // The largest value in the table, which is one more than the longest mate in plies
+    int getLongestValue() {
+        int longest = 0;
+        for (long index = 0; index < size; index++) {
+            longest = Math.max(longest, value(index));
+        }
+        return longest;
+    }
+
+    public static boolean isWin(int value) {
+        return value != DRAW && (value & 1) == 0;
+    }
+
+    public static boolean isLoss(int value) {
+        return (value & 1) != 0;
+    }
+
+    // Plies to mate for a win or loss
+    public static int mateDistance(int value) {
+        return value - 1;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // Index of the position in this table, or -1 if its material or rights do not match
+    long index(Board board) {
+        if (board.getCastlingRights() != 0 || isEnPassantPossible(board)) {
+            return -1;
+        }
+        boolean flipped;
+        if (hasPieces(board, PieceColor.WHITE, strongCounts) && hasPieces(board, PieceColor.BLACK, weakCounts)) {
+            flipped = false;
+        } else if (hasPieces(board, PieceColor.BLACK, strongCounts) && hasPieces(board, PieceColor.WHITE, weakCounts)) {
+            flipped = true;
+        } else {
+            return -1;
+        }
+        return index(board, flipped);
+    }
+
+    // Index of a position known to have this table's material, the stronger side black
+    // if flipped
+    long index(Board board, boolean flipped) {
+        PieceColor strong = flipped ? PieceColor.BLACK : PieceColor.WHITE;
+        PieceColor weak = flipped ? PieceColor.WHITE : PieceColor.BLACK;
+        // Seen from the stronger side, which the table always has as white
+        int mirror = flipped ? 56 : 0;
+
+        int strongKing = Long.numberOfTrailingZeros(board.getPieceBitboard(strong, PieceType.KING)) ^ mirror;
+        int weakKing = Long.numberOfTrailingZeros(board.getPieceBitboard(weak, PieceType.KING)) ^ mirror;
+        int symmetry = symmetry(strongKing, weakKing, pawns);
+        long index = board.getSideToMove() == strong ? 0 : 1;
+        index = index * (pawns ? 32 : 10) + kingSlot(transform(strongKing, symmetry), pawns);
+        index = index * 64 + transform(weakKing, symmetry);
+        index = appendPieces(index, board, strong, strongPieces, mirror, symmetry);
+        return appendPieces(index, board, weak, weakPieces, mirror, symmetry);
+    }
+
+    // Set up the position at the index, the stronger side as white. Returns false if two
+    // pieces share a square or a pawn stands on the first or last rank; whether the
+    // position could arise (the side not to move in check, say) is left to the caller.
+    boolean setPosition(long index, Board board) {
+        board.clear();
+        long occupied = 0L;
+        for (int i = weakPieces.length - 1; i >= 0; i--) {
+            occupied = place(board, (int) (index & 63), weakPieces[i], PieceColor.BLACK, occupied);
+            index >>>= 6;
+        }
+        for (int i = strongPieces.length - 1; i >= 0; i--) {
+            occupied = place(board, (int) (index & 63), strongPieces[i], PieceColor.WHITE, occupied);
+            index >>>= 6;
+        }
+        occupied = place(board, (int) (index & 63), PieceType.KING, PieceColor.BLACK, occupied);
+        index >>>= 6;
+        int slots = pawns ? 32 : 10;
+        int slot = (int) (index % slots);
+        occupied = place(board, pawns ? (slot >>> 2) * 8 + (slot & 3) : TRIANGLE_SQUARES[slot],
+                PieceType.KING, PieceColor.WHITE, occupied);
+        if (occupied == -1L) {
+            return false;
+        }
+        board.setState(index / slots == 0 ? PieceColor.WHITE : PieceColor.BLACK, 0, Square.NONE, 0, 1);
+        return true;
+    }
+
+    // Returns the new occupancy, or -1 once the position has turned out impossible
+    private static long place(Board board, int square, PieceType type, PieceColor color, long occupied) {
+        long bit = 1L << square;
+        if (occupied == -1L || (occupied & bit) != 0
+                || (type == PieceType.PAWN && (Square.rank(square) == 0 || Square.rank(square) == 7))) {
+            return -1L;
+        }
+        board.setPiece(square, type, color);
+        return occupied | bit;
+    }
+
+    private static boolean hasPieces(Board board, PieceColor color, int[] counts) {
+        for (int type = 0; type < counts.length; type++) {
+            if (type != PieceType.KING.ordinal()
+                    && Long.bitCount(board.bitboard(color.ordinal(), type)) != counts[type]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // An en passant square only matters when a pawn can take on it
+    private static boolean isEnPassantPossible(Board board) {
+        int square = board.getEnPassantSquare();
+        int side = board.sideIndex();
+        return square != Square.NONE
+                && (Bitboards.pawnAttacks(side ^ 1, square) & board.bitboard(side, PieceType.PAWN.ordinal())) != 0;
+    }
+
+    private static long appendPieces(long index, Board board, PieceColor color, PieceType[] types, int mirror, int symmetry) {
+        PieceType current = null;
+        long remaining = 0L;
+        for (PieceType type : types) {
+            if (type != current) {
+                current = type;
+                remaining = board.getPieceBitboard(color, type);
+            }
+            index = index * 64 + transform(Long.numberOfTrailingZeros(remaining) ^ mirror, symmetry);
+            remaining &= remaining - 1;
+        }
+        return index;
+    }
+
+    // Canonical material of the position, stronger side first, e.g. "KRvKN"
+    public static String material(Board board) {
+        String white = side(board, PieceColor.WHITE);
+        String black = side(board, PieceColor.BLACK);
+        return compareSides(black, white) > 0 ? black + "v" + white : white + "v" + black;
+    }
+
+    // The material as piece counts, four bits per piece type and side, with the larger side
+    // first: the same for both colours and for the table's name, and built without
+    // allocating. Bare kings give 0.
+    public static long materialKey(Board board) {
+        long white = 0;
+        long black = 0;
+        for (int type = 0; type < PieceType.KING.ordinal(); type++) {
+            white |= (long) Long.bitCount(board.bitboard(PieceColor.WHITE.ordinal(), type)) << (4 * type);
+            black |= (long) Long.bitCount(board.bitboard(PieceColor.BLACK.ordinal(), type)) << (4 * type);
+        }
+        return materialKey(white, black);
+    }
+
+    // Same, for a material name such as "KRvKN"
+    public static long materialKey(String material) {
+        String[] sides = material.split("v", -1);
+        if (sides.length != 2) {
+            throw new IllegalArgumentException("Not a material: " + material);
+        }
+        long[] counts = new long[2];
+        for (int side = 0; side < 2; side++) {
+            for (PieceType type : pieces(sides[side])) {
+                counts[side] += 1L << (4 * type.ordinal());
+            }
+        }
+        return materialKey(counts[0], counts[1]);
+    }
+
+    private static long materialKey(long first, long second) {
+        return Math.max(first, second) << 32 | Math.min(first, second);
+    }
+
+    // Canonical material for two sides whose pieces may be in any order
+    static String material(String first, String second) {
+        first = sortSide(first);
+        second = sortSide(second);
+        return compareSides(second, first) > 0 ? second + "v" + first : first + "v" + second;
+    }
+
+    private static String sortSide(String side) {
+        StringBuilder sorted = new StringBuilder("K");
+        for (int i = 0; i < PIECE_ORDER.length(); i++) {
+            char c = PIECE_ORDER.charAt(i);
+            for (int j = 1; j < side.length(); j++) {
+                if (side.charAt(j) == c) {
+                    sorted.append(c);
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    // Number of values in the table for the material
+    public static long size(String material) {
+        int pieces = material.length() - 1;
+        long size = 2L * (material.indexOf('P') >= 0 ? 32 : 10);
+        for (int i = 1; i < pieces; i++) {
+            size *= 64;
+        }
+        return size;
+    }
+
+    static boolean isMaterial(String material) {
+        String[] sides = material.split("v", -1);
+        return sides.length == 2 && isSide(sides[0]) && isSide(sides[1])
+                && material.equals(compareSides(sides[1], sides[0]) > 0 ? sides[1] + "v" + sides[0] : material);
+    }
+
+    private static boolean isSide(String side) {
+        if (side.isEmpty() || side.charAt(0) != 'K') {
+            return false;
+        }
+        int last = 0;
+        for (int i = 1; i < side.length(); i++) {
+            int order = PIECE_ORDER.indexOf(side.charAt(i));
+            if (order < last) {
+                return false;
+            }
+            last = order;
+        }
+        return true;
+    }
+
+    private static String side(Board board, PieceColor color) {
+        StringBuilder side = new StringBuilder("K");
+        for (int i = 0; i < PIECE_ORDER.length(); i++) {
+            PieceType type = pieceType(PIECE_ORDER.charAt(i));
+            for (int n = Long.bitCount(board.getPieceBitboard(color, type)); n > 0; n--) {
+                side.append(PIECE_ORDER.charAt(i));
+            }
+        }
+        return side.toString();
+    }
+
+    // More pieces wins, then more of the stronger types in Q R B N P order
+    private static int compareSides(String a, String b) {
+        if (a.length() != b.length()) {
+            return Integer.compare(a.length(), b.length());
+        }
+        for (int i = 0; i < PIECE_ORDER.length(); i++) {
+            char c = PIECE_ORDER.charAt(i);
+            int difference = Long.compare(a.chars().filter(x -> x == c).count(), b.chars().filter(x -> x == c).count());
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    private static int[] counts(PieceType[] types) {
+        int[] counts = new int[PieceType.values().length];
+        for (PieceType type : types) {
+            counts[type.ordinal()]++;
+        }
+        return counts;
+    }
+
+    private static PieceType[] pieces(String side) {
+        PieceType[] types = new PieceType[side.length() - 1];
+        for (int i = 1; i < side.length(); i++) {
+            types[i - 1] = pieceType(side.charAt(i));
+        }
+        return types;
+    }
+
+    private static PieceType pieceType(char c) {
+        return switch (c) {
+            case 'Q' -> PieceType.QUEEN;
+            case 'R' -> PieceType.ROOK;
+            case 'B' -> PieceType.BISHOP;
+            case 'N' -> PieceType.KNIGHT;
+            case 'P' -> PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece: " + c);
+        };
+    }
+
+    // Symmetry bits: 1 mirrors files, 2 mirrors ranks, 4 mirrors along a1-h8. Pawns only
+    // allow the file mirror. A stronger king on the diagonal leaves the a1-h8 mirror free,
+    // and it is used to keep the weaker king below the diagonal.
+    static int symmetry(int strongKing, int weakKing, boolean pawns) {
+        int symmetry = Square.file(strongKing) > 3 ? 1 : 0;
+        if (!pawns) {
+            if (Square.rank(strongKing) > 3) {
+                symmetry |= 2;
+            }
+            int king = transform(strongKing, symmetry);
+            int other = transform(weakKing, symmetry);
+            if (Square.rank(king) > Square.file(king)
+                    || (Square.rank(king) == Square.file(king) && Square.rank(other) > Square.file(other))) {
+                symmetry |= 4;
+            }
+        }
+        return symmetry;
+    }
+
+    static int transform(int square, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            square ^= 7;
+        }
+        if ((symmetry & 2) != 0) {
+            square ^= 56;
+        }
+        if ((symmetry & 4) != 0) {
+            square = ((square & 7) << 3) | (square >>> 3);
+        }
+        return square;
+    }
+
+    static int kingSlot(int king, boolean pawns) {
+        return pawns ? Square.rank(king) * 4 + Square.file(king) : TRIANGLE[king];
+    }
+}
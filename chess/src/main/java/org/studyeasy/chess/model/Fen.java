@@ -0,0 +1,222 @@
+package org.studyeasy.chess.model;
+
+// Forsyth-Edwards Notation for Board positions. Parsing rejects positions the board
+// cannot represent or play from, so toFen(parse(fen)) gives back the same FEN.
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    public static Board parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4 || fields.length > 6) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        Board board = new Board();
+        board.clear();
+
+        // Piece placement, rank 8 first
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN placement: " + fields[0]);
+        }
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            boolean lastWasDigit = false;
+            for (char c : ranks[row].toCharArray()) {
+                if (c >= '1' && c <= '8' && !lastWasDigit) {
+                    col += c - '0';
+                    lastWasDigit = true;
+                } else if (Character.isDigit(c)) {
+                    // Zeros, nines and split runs like "44" are not FEN
+                    col = 9;
+                } else if (col < 8) {
+                    lastWasDigit = false;
+                    PieceColor color = Character.isUpperCase(c) ? PieceColor.WHITE : PieceColor.BLACK;
+                    board.setPiece(Square.of(row, col), pieceType(c, fen), color);
+                    col++;
+                } else {
+                    col = 9;
+                }
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("Invalid FEN rank: " + ranks[row]);
+            }
+        }
+
+        PieceColor side = switch (fields[1]) {
+            case "w" -> PieceColor.WHITE;
+            case "b" -> PieceColor.BLACK;
+            default -> throw new IllegalArgumentException("Invalid FEN side to move: " + fields[1]);
+        };
+
+        int castling = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                int right = switch (c) {
+                    case 'K' -> Board.WHITE_KINGSIDE;
+                    case 'Q' -> Board.WHITE_QUEENSIDE;
+                    case 'k' -> Board.BLACK_KINGSIDE;
+                    case 'q' -> Board.BLACK_QUEENSIDE;
+                    default -> throw new IllegalArgumentException("Invalid FEN castling: " + fields[2]);
+                };
+                // Rights must be unique and in KQkq order
+                if (right <= castling) {
+                    throw new IllegalArgumentException("Invalid FEN castling: " + fields[2]);
+                }
+                castling |= right;
+            }
+        }
+
+        int enPassant = Square.NONE;
+        if (!fields[3].equals("-")) {
+            Position position = Position.fromChessNotation(fields[3]);
+            if (!position.isValid()) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fields[3]);
+            }
+            enPassant = Square.of(position);
+        }
+
+        int halfmove = fields.length > 4 ? counter(fields[4], 0, fen) : 0;
+        int fullmove = fields.length > 5 ? counter(fields[5], 1, fen) : 1;
+
+        board.setState(side, castling, enPassant, halfmove, fullmove);
+        validate(board, fen);
+        return board;
+    }
+
+    // Positions that parse but that the move generator cannot work with
+    private static void validate(Board board, String fen) {
+        for (PieceColor color : PieceColor.values()) {
+            if (Long.bitCount(board.getPieceBitboard(color, PieceType.KING)) != 1) {
+                throw new IllegalArgumentException("FEN needs exactly one " + color + " king: " + fen);
+            }
+        }
+        long pawns = board.getPieceBitboard(PieceColor.WHITE, PieceType.PAWN)
+                | board.getPieceBitboard(PieceColor.BLACK, PieceType.PAWN);
+        if ((pawns & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+            throw new IllegalArgumentException("FEN has a pawn on the first or last rank: " + fen);
+        }
+
+        PieceColor side = board.getSideToMove();
+        PieceColor other = side == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+        if (board.isInCheck(other)) {
+            throw new IllegalArgumentException("FEN side not to move is in check: " + fen);
+        }
+
+        // Each castling right needs the king and that rook on their starting squares
+        int castling = board.getCastlingRights();
+        checkCastling(board, castling, Board.WHITE_KINGSIDE, PieceColor.WHITE, 4, 7, fen);
+        checkCastling(board, castling, Board.WHITE_QUEENSIDE, PieceColor.WHITE, 4, 0, fen);
+        checkCastling(board, castling, Board.BLACK_KINGSIDE, PieceColor.BLACK, 60, 63, fen);
+        checkCastling(board, castling, Board.BLACK_QUEENSIDE, PieceColor.BLACK, 60, 56, fen);
+
+        // The en passant square is the empty square just behind a pawn that double-pushed
+        int enPassant = board.getEnPassantSquare();
+        if (enPassant != Square.NONE) {
+            int rank = side == PieceColor.WHITE ? 5 : 2;
+            int pawnSquare = side == PieceColor.WHITE ? enPassant - 8 : enPassant + 8;
+            if (Square.rank(enPassant) != rank || board.getPiece(enPassant) != null
+                    || board.getPiece(pawnSquare) != Piece.of(other, PieceType.PAWN)) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fen);
+            }
+        }
+    }
+
+    private static void checkCastling(Board board, int castling, int right, PieceColor color,
+                                      int kingSquare, int rookSquare, String fen) {
+        if ((castling & right) != 0 && (board.getPiece(kingSquare) != Piece.of(color, PieceType.KING)
+                || board.getPiece(rookSquare) != Piece.of(color, PieceType.ROOK))) {
+            throw new IllegalArgumentException("FEN castling right without king and rook in place: " + fen);
+        }
+    }
+
+    private static int counter(String field, int min, String fen) {
+        try {
+            int value = Integer.parseInt(field);
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid FEN move counter '" + field + "' in " + fen);
+    }
+
+    public static String toFen(Board board) {
+        StringBuilder fen = new StringBuilder(90);
+
+        // Board representation
+        for (int row = 0; row < 8; row++) {
+            int emptyCount = 0;
+
+            for (int col = 0; col < 8; col++) {
+                Piece piece = board.pieceAt(Square.of(row, col));
+
+                if (piece == null) {
+                    emptyCount++;
+                } else {
+                    if (emptyCount > 0) {
+                        fen.append(emptyCount);
+                        emptyCount = 0;
+                    }
+                    fen.append(pieceChar(piece));
+                }
+            }
+
+            if (emptyCount > 0) {
+                fen.append(emptyCount);
+            }
+
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(board.getSideToMove() == PieceColor.WHITE ? " w " : " b ");
+
+        int castling = board.getCastlingRights();
+        if (castling == 0) {
+            fen.append('-');
+        } else {
+            if ((castling & Board.WHITE_KINGSIDE) != 0) fen.append('K');
+            if ((castling & Board.WHITE_QUEENSIDE) != 0) fen.append('Q');
+            if ((castling & Board.BLACK_KINGSIDE) != 0) fen.append('k');
+            if ((castling & Board.BLACK_QUEENSIDE) != 0) fen.append('q');
+        }
+
+        int enPassant = board.getEnPassantSquare();
+        fen.append(' ').append(enPassant == Square.NONE ? "-" : Square.name(enPassant));
+        fen.append(' ').append(board.getHalfmoveClock());
+        fen.append(' ').append(board.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    private static PieceType pieceType(char c, String fen) {
+        return switch (Character.toLowerCase(c)) {
+            case 'p' -> PieceType.PAWN;
+            case 'r' -> PieceType.ROOK;
+            case 'n' -> PieceType.KNIGHT;
+            case 'b' -> PieceType.BISHOP;
+            case 'q' -> PieceType.QUEEN;
+            case 'k' -> PieceType.KING;
+            default -> throw new IllegalArgumentException("Invalid FEN piece '" + c + "' in " + fen);
+        };
+    }
+
+    public static char pieceChar(Piece piece) {
+        char c = switch (piece.getType()) {
+            case PAWN -> 'p';
+            case ROOK -> 'r';
+            case KNIGHT -> 'n';
+            case BISHOP -> 'b';
+            case QUEEN -> 'q';
+            case KING -> 'k';
+        };
+
+        // Uppercase for white pieces
+        return piece.getColor() == PieceColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+}
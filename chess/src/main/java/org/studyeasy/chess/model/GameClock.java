@@ -0,0 +1,107 @@
+package org.studyeasy.chess.model;
+
+import java.util.function.LongSupplier;
+
+// Chess clock measured with System.nanoTime, so wall clock changes and a busy UI thread
+// cost no time. The running side's time is worked out from when its turn started
+// whenever it is read; nothing ticks. Methods are synchronized because the UI and the
+// engine thread both read it.
+public final class GameClock {
+    private final TimeControl timeControl;
+    private final LongSupplier nanoTime;
+    // Remaining time per color at the start of the current turn
+    private final long[] remainingNanos = new long[2];
+    private PieceColor running;
+    private long turnStartNanos;
+    private PieceColor flagged;
+
+    public GameClock(TimeControl timeControl) {
+        this(timeControl, System::nanoTime);
+    }
+
+    GameClock(TimeControl timeControl, LongSupplier nanoTime) {
+        if (!timeControl.isTimed()) {
+            throw new IllegalArgumentException("A clock needs a starting time");
+        }
+        this.timeControl = timeControl;
+        this.nanoTime = nanoTime;
+        remainingNanos[0] = timeControl.initialMillis() * 1_000_000L;
+        remainingNanos[1] = remainingNanos[0];
+    }
+
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    // Start the given side's clock. If the other side was running, its move is complete:
+    // its time is charged and the increment or delay is applied. Returns false if the
+    // side whose move it was had already run out of time.
+    public synchronized boolean start(PieceColor color) {
+        long now = nanoTime.getAsLong();
+        boolean inTime = true;
+        if (running != null && running != color) {
+            inTime = endTurn(now);
+        }
+        if (flagged != null) {
+            return false;
+        }
+        if (running != color) {
+            running = color;
+            turnStartNanos = now;
+        }
+        return inTime;
+    }
+
+    // Stop without finishing the move, e.g. when the game ends
+    public synchronized void stop() {
+        if (running != null) {
+            long now = nanoTime.getAsLong();
+            int side = running.ordinal();
+            remainingNanos[side] = Math.max(0, remainingNanos[side] - (now - turnStartNanos));
+            if (remainingNanos[side] == 0) {
+                flagged = running;
+            }
+            running = null;
+        }
+    }
+
+    public synchronized PieceColor getRunning() {
+        return running;
+    }
+
+    public synchronized long getRemainingMillis(PieceColor color) {
+        return remainingNanos(color, nanoTime.getAsLong()) / 1_000_000L;
+    }
+
+    // The side that ran out of time, or null
+    public synchronized PieceColor getFlagged() {
+        if (flagged == null && running != null && remainingNanos(running, nanoTime.getAsLong()) == 0) {
+            flagged = running;
+        }
+        return flagged;
+    }
+
+    private long remainingNanos(PieceColor color, long now) {
+        long remaining = remainingNanos[color.ordinal()];
+        if (color == running) {
+            remaining -= now - turnStartNanos;
+        }
+        return Math.max(0, remaining);
+    }
+
+    private boolean endTurn(long now) {
+        int side = running.ordinal();
+        long used = now - turnStartNanos;
+        long remaining = remainingNanos[side] - used;
+        if (remaining <= 0) {
+            remainingNanos[side] = 0;
+            flagged = running;
+            running = null;
+            return false;
+        }
+        long delayNanos = timeControl.delayMillis() * 1_000_000L;
+        remainingNanos[side] = remaining + Math.min(used, delayNanos) + timeControl.incrementMillis() * 1_000_000L;
+        running = null;
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package org.studyeasy.chess.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Magic bitboard lookup for sliding pieces. For each square, the relevant blockers (the
+// rays without their edge squares) are multiplied by a magic number whose top bits index
+// the square's slice of a shared attack table. The magics below were found by main() and
+// only the tables are built at class load, which takes a few milliseconds.
+final class Magics {
+    private static final long[] ROOK_MAGICS = {
+        0x0880004000801022L, 0x4440200440021000L, 0x088008D002200080L, 0x8480041000480080L,
+        0x1080040068008022L, 0x2200010842004410L, 0x1500008409000200L, 0x020000804029040AL,
+        0x4800800040008020L, 0x2082002200410082L, 0x0301001041082000L, 0xC041808008003000L,
+        0x00A4800400800800L, 0x0010800200800400L, 0x0184800100020080L, 0x0040800040802100L,
+        0x4000848004400060L, 0x8684444010002000L, 0x2006820010204200L, 0x0000090021001000L,
+        0x2009010008001004L, 0x900C008004020080L, 0x4108040001100288L, 0x5020220000804114L,
+        0x0080034240002000L, 0x03D0104040002000L, 0x4000100480200480L, 0x0040401200200A00L,
+        0x0008008080040008L, 0x0001000300080400L, 0x4CE1080400421001L, 0x0860804200108124L,
+        0x1000804000800020L, 0x2020100020400040L, 0x4030104202002080L, 0x8048048008801000L,
+        0x40A0040080800802L, 0x0204020080800400L, 0x0500080104000290L, 0xA004012092000044L,
+        0x0002008100420020L, 0x000150002008C000L, 0x090C410020090010L, 0x88422200400A0011L,
+        0x0008002040040400L, 0x0002001004020008L, 0x021600C108020004L, 0x4204410080420004L,
+        0x0040800821004100L, 0x0200842000400480L, 0x0020620140B68200L, 0x80100008E1510100L,
+        0x0080800801040180L, 0x0803000804000300L, 0x0000080162300400L, 0x4002108041040200L,
+        0x8200102040800101L, 0x4602400016210481L, 0x08000A0040102082L, 0x0410210108100005L,
+        0x1011001008000423L, 0x11B1000400020801L, 0x0000012200881004L, 0x000008204401008AL
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x0A4C907009012380L, 0x8020040140410008L, 0x4008160416A03010L, 0x08482140C8000008L,
+        0x1001104080060014L, 0x4001040240080400L, 0x8010880411040000L, 0x0001908228200400L,
+        0x0004600504080C40L, 0x20400208010C1280L, 0x40A0100102202814L, 0x4900044040800003L,
+        0x0143211040010002L, 0x4080008210408180L, 0x00031C2401041002L, 0x2040408410821000L,
+        0x4209481020482082L, 0x1085002004040042L, 0x1029010806440080L, 0x2002021420220000L,
+        0x0041000490400008L, 0x1040210A02100208L, 0x1848430488081840L, 0x20411000618A1020L,
+        0x0444200840C80108L, 0x2010552010010200L, 0x34009000080A4090L, 0x00140800240A0008L,
+        0x5181020004008400L, 0x2480408044100408L, 0x0082021000880100L, 0x0021042001040120L,
+        0x8085442210502000L, 0x11D2482000041900L, 0x4000805000890400L, 0x0200202020080080L,
+        0x000801240108C100L, 0x0C00880081211004L, 0x2A01010A00240211L, 0x262C090200405050L,
+        0x0002092160300809L, 0x0132080404004200L, 0x11000C0044080800L, 0x0410004200840800L,
+        0x0081082104020040L, 0x2002040806000420L, 0x042028050120044CL, 0x0041010222010084L,
+        0x0108412828411400L, 0x0002010401044029L, 0x0009008848084D44L, 0x0000808104091200L,
+        0x1A0100111E120000L, 0x8004900210410003L, 0xA007500401040800L, 0xD030500080809004L,
+        0x000014008210100AL, 0x0000408400880501L, 0x0010001044044400L, 0x00080029A0208800L,
+        0x008C1000C0050102L, 0x0800040604080A04L, 0x0200109001080880L, 0x1808100122082200L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE = init(true, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE = init(false, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+    private Magics() {
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    private static long[] init(boolean rook, long[] magics, long[] masks, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, rook);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        long[] blockers = new long[1 << 12];
+        long[] attacks = new long[1 << 12];
+        int[] filledBy = new int[1 << 12];
+        for (int square = 0; square < 64; square++) {
+            int subsets = enumerate(square, rook, masks[square], blockers, attacks);
+            if (!tryMagic(magics[square], shifts[square], blockers, attacks, subsets, table, offsets[square], filledBy, square + 1)) {
+                throw new IllegalStateException("Bad magic for square " + Square.name(square));
+            }
+        }
+        return table;
+    }
+
+    // Every subset of the mask (Carry-Rippler) with the attacks it leaves; returns the count
+    private static int enumerate(int square, boolean rook, long mask, long[] blockers, long[] attacks) {
+        int subsets = 1 << Long.bitCount(mask);
+        long subset = 0L;
+        for (int i = 0; i < subsets; i++) {
+            blockers[i] = subset;
+            attacks[i] = rook ? Bitboards.rayRookAttacks(square, subset) : Bitboards.rayBishopAttacks(square, subset);
+            subset = (subset - mask) & mask;
+        }
+        return subsets;
+    }
+
+    // Fill the square's slice of the table; fails if two subsets with different attacks
+    // share a slot. Slots are stamped with the attempt that filled them, so nothing needs
+    // clearing between attempts.
+    private static boolean tryMagic(long magic, int shift, long[] blockers, long[] attacks, int subsets,
+                                    long[] table, int offset, int[] filledBy, int attempt) {
+        for (int i = 0; i < subsets; i++) {
+            int index = (int) ((blockers[i] * magic) >>> shift);
+            if (filledBy[index] != attempt) {
+                filledBy[index] = attempt;
+                table[offset + index] = attacks[i];
+            } else if (table[offset + index] != attacks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A blocker on the last square of a ray cannot hide anything, so edges are left out
+    private static long relevantBlockers(int square, boolean rook) {
+        long attacks = rook ? Bitboards.rayRookAttacks(square, 0L) : Bitboards.rayBishopAttacks(square, 0L);
+        long edges = ((Bitboards.RANK_1 | Bitboards.RANK_8) & ~(Bitboards.RANK_1 << (Square.rank(square) * 8)))
+                | ((Bitboards.FILE_A | Bitboards.FILE_H) & ~(Bitboards.FILE_A << Square.file(square)));
+        return attacks & ~edges;
+    }
+
+    // Search for a fresh set of magics with sparse random numbers and print them in the
+    // layout of the tables above. Usage: Magics [seed]
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(args.length > 0 ? Long.parseLong(args[0]) : 1L);
+        long[] blockers = new long[1 << 12];
+        long[] attacks = new long[1 << 12];
+        int[] filledBy = new int[1 << 12];
+        long[] table = new long[1 << 12];
+        for (boolean rook : new boolean[]{true, false}) {
+            System.out.println(rook ? "ROOK_MAGICS" : "BISHOP_MAGICS");
+            StringBuilder out = new StringBuilder();
+            for (int square = 0; square < 64; square++) {
+                long mask = relevantBlockers(square, rook);
+                int subsets = enumerate(square, rook, mask, blockers, attacks);
+                int shift = 64 - Long.bitCount(mask);
+                Arrays.fill(filledBy, 0);
+                long magic;
+                int attempt = 0;
+                do {
+                    magic = random.nextLong() & random.nextLong() & random.nextLong();
+                    attempt++;
+                    // Magics that spread the mask poorly into the top byte rarely work
+                } while (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6
+                        || !tryMagic(magic, shift, blockers, attacks, subsets, table, 0, filledBy, attempt));
+                out.append(String.format("0x%016XL%s", magic, square == 63 ? "\n" : square % 4 == 3 ? ",\n" : ", "));
+            }
+            System.out.print(out);
+        }
+    }
+}
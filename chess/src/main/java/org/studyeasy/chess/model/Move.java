@@ -0,0 +1,89 @@
+package org.studyeasy.chess.model;
+
+// Moves packed into a single int so move lists can live in primitive buffers.
+// Bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the promotion
+// piece type and the remaining bits the flags below.
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+    public static final int CASTLE = 1 << 18;
+    public static final int PROMOTION = 1 << 19;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    public static int promotion(int from, int to, PieceType type, int flags) {
+        return of(from, to, flags | PROMOTION) | (type.ordinal() << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static PieceType promotionType(int move) {
+        return isPromotion(move) ? TYPES[(move >>> 12) & 7] : null;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    // Squares whose contents the move changes: from and to, the castling rook's squares
+    // and the square of a pawn taken en passant
+    public static long affectedSquares(int move) {
+        int from = from(move);
+        int to = to(move);
+        long squares = (1L << from) | (1L << to);
+        if (isCastle(move)) {
+            boolean kingside = to > from;
+            squares |= (1L << (kingside ? from + 3 : from - 4)) | (1L << (kingside ? to - 1 : to + 1));
+        } else if (isEnPassant(move)) {
+            squares |= 1L << ((from & ~7) | (to & 7));
+        }
+        return squares;
+    }
+
+    // Coordinate notation such as "e2e4" or "e7e8q"
+    public static String toUci(int move) {
+        String uci = Square.name(from(move)) + Square.name(to(move));
+        PieceType promotion = promotionType(move);
+        if (promotion != null) {
+            uci += switch (promotion) {
+                case ROOK -> "r";
+                case KNIGHT -> "n";
+                case BISHOP -> "b";
+                default -> "q";
+            };
+        }
+        return uci;
+    }
+}
@@ -0,0 +1,268 @@
+package org.studyeasy.chess.model;
+
+// Legal move generation straight from the bitboards. Legality is decided up front with
+// check and pin masks, so no move is ever made and taken back just to test it.
+public final class MoveGenerator {
+    // Generation stages, combinable as a bit set
+    public static final int CAPTURES = 1; // captures, en passant and all promotions
+    public static final int QUIETS = 2;   // everything else, castling included
+    public static final int ALL = CAPTURES | QUIETS;
+
+    // No legal position has more than 218 moves
+    public static final int MAX_MOVES = 256;
+
+    private static final int WHITE = 0;
+    private static final int PAWN = PieceType.PAWN.ordinal();
+    private static final int ROOK = PieceType.ROOK.ordinal();
+    private static final int KNIGHT = PieceType.KNIGHT.ordinal();
+    private static final int BISHOP = PieceType.BISHOP.ordinal();
+    private static final int QUEEN = PieceType.QUEEN.ordinal();
+    private static final int KING = PieceType.KING.ordinal();
+
+    private MoveGenerator() {
+    }
+
+    // Writes the legal moves of the side to move into the buffer, captures and promotions
+    // first, and returns how many were written
+    public static int generate(Board board, int[] moves, int stages) {
+        int us = board.sideIndex();
+        int them = us ^ 1;
+        long own = board.occupancy(us);
+        long enemy = board.occupancy(them);
+        long occupied = own | enemy;
+        int king = Long.numberOfTrailingZeros(board.bitboard(us, KING));
+
+        long checkers = attackersTo(board, king, them, occupied);
+        long pinned = pinnedPieces(board, king, us, occupied);
+
+        // Squares a non-king move must land on: anywhere, or block/capture a single checker
+        long evasions = -1L;
+        if (checkers != 0) {
+            evasions = checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        boolean doubleCheck = Long.bitCount(checkers) > 1;
+
+        int count = 0;
+        if ((stages & CAPTURES) != 0) {
+            if (!doubleCheck) {
+                count = generatePawnCaptures(board, moves, count, us, king, enemy, occupied, pinned, evasions);
+                count = generatePieceMoves(board, moves, count, us, king, enemy & evasions, occupied, pinned, Move.CAPTURE);
+            }
+            count = generateKingMoves(board, moves, count, us, king, enemy, occupied, Move.CAPTURE);
+        }
+        if ((stages & QUIETS) != 0) {
+            if (!doubleCheck) {
+                count = generatePawnPushes(board, moves, count, us, king, occupied, pinned, evasions);
+                count = generatePieceMoves(board, moves, count, us, king, ~occupied & evasions, occupied, pinned, 0);
+            }
+            count = generateKingMoves(board, moves, count, us, king, ~occupied, occupied, 0);
+            if (checkers == 0) {
+                count = generateCastling(board, moves, count, us, king, occupied);
+            }
+        }
+        return count;
+    }
+
+    // Pieces of the given color attacking the square, with sliders seen through the occupancy
+    static long attackersTo(Board board, int square, int color, long occupied) {
+        long queens = board.bitboard(color, QUEEN);
+        return (Bitboards.pawnAttacks(color ^ 1, square) & board.bitboard(color, PAWN))
+                | (Bitboards.knightAttacks(square) & board.bitboard(color, KNIGHT))
+                | (Bitboards.kingAttacks(square) & board.bitboard(color, KING))
+                | (Bitboards.bishopAttacks(square, occupied) & (board.bitboard(color, BISHOP) | queens))
+                | (Bitboards.rookAttacks(square, occupied) & (board.bitboard(color, ROOK) | queens));
+    }
+
+    // Own pieces that are the only blocker between the king and an enemy slider
+    private static long pinnedPieces(Board board, int king, int us, long occupied) {
+        int them = us ^ 1;
+        long enemy = board.occupancy(them);
+        long queens = board.bitboard(them, QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, enemy) & (board.bitboard(them, ROOK) | queens))
+                | (Bitboards.bishopAttacks(king, enemy) & (board.bitboard(them, BISHOP) | queens));
+
+        long pinned = 0L;
+        long own = board.occupancy(us);
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static int generatePieceMoves(Board board, int[] moves, int count, int us, int king,
+                                          long targets, long occupied, long pinned, int flags) {
+        for (int type = ROOK; type <= QUEEN; type++) {
+            long pieces = board.bitboard(us, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+
+                long attacks = pieceAttacks(type, from, occupied) & targets;
+                if ((pinned & (1L << from)) != 0) {
+                    attacks &= Bitboards.line(king, from);
+                }
+
+                while (attacks != 0) {
+                    int to = Long.numberOfTrailingZeros(attacks);
+                    attacks &= attacks - 1;
+                    moves[count++] = Move.of(from, to, flags);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long pieceAttacks(int type, int from, long occupied) {
+        if (type == KNIGHT) {
+            return Bitboards.knightAttacks(from);
+        }
+        if (type == BISHOP) {
+            return Bitboards.bishopAttacks(from, occupied);
+        }
+        if (type == ROOK) {
+            return Bitboards.rookAttacks(from, occupied);
+        }
+        return Bitboards.queenAttacks(from, occupied);
+    }
+
+    private static int generateKingMoves(Board board, int[] moves, int count, int us, int king,
+                                         long targets, long occupied, int flags) {
+        long attacks = Bitboards.kingAttacks(king) & targets;
+        // The king must not shield the squares behind it from a slider
+        long withoutKing = occupied & ~(1L << king);
+        while (attacks != 0) {
+            int to = Long.numberOfTrailingZeros(attacks);
+            attacks &= attacks - 1;
+            if (attackersTo(board, to, us ^ 1, withoutKing) == 0) {
+                moves[count++] = Move.of(king, to, flags);
+            }
+        }
+        return count;
+    }
+
+    private static int generatePawnCaptures(Board board, int[] moves, int count, int us, int king,
+                                            long enemy, long occupied, long pinned, long evasions) {
+        int push = us == WHITE ? 8 : -8;
+        long promotionRank = us == WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        int enPassant = board.getEnPassantSquare();
+
+        long pawns = board.bitboard(us, PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            long allowed = evasions;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.line(king, from);
+            }
+
+            long attacks = Bitboards.pawnAttacks(us, from);
+            long captures = attacks & enemy & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if ((promotionRank & (1L << to)) != 0) {
+                    count = addPromotions(moves, count, from, to, Move.CAPTURE);
+                } else {
+                    moves[count++] = Move.of(from, to, Move.CAPTURE);
+                }
+            }
+
+            // Push promotions belong to this stage too
+            int to = from + push;
+            long toBit = 1L << to;
+            if ((promotionRank & toBit) != 0 && (occupied & toBit) == 0 && (allowed & toBit) != 0) {
+                count = addPromotions(moves, count, from, to, 0);
+            }
+
+            if (enPassant != Square.NONE && (attacks & (1L << enPassant)) != 0
+                    && isLegalEnPassant(board, us, king, from, enPassant, occupied)) {
+                moves[count++] = Move.of(from, enPassant, Move.CAPTURE | Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    // En passant removes two pieces from one rank, so it is checked against the
+    // resulting occupancy rather than the pin masks
+    private static boolean isLegalEnPassant(Board board, int us, int king, int from, int to, long occupied) {
+        long capturedBit = 1L << (to - (us == WHITE ? 8 : -8));
+        long after = (occupied & ~(1L << from) & ~capturedBit) | (1L << to);
+        return (attackersTo(board, king, us ^ 1, after) & ~capturedBit) == 0;
+    }
+
+    private static int generatePawnPushes(Board board, int[] moves, int count, int us, int king,
+                                          long occupied, long pinned, long evasions) {
+        int push = us == WHITE ? 8 : -8;
+        long promotionRank = us == WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long startRank = us == WHITE ? Bitboards.RANK_2 : Bitboards.RANK_7;
+
+        long pawns = board.bitboard(us, PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            int to = from + push;
+            long toBit = 1L << to;
+            if ((occupied & toBit) != 0 || (promotionRank & toBit) != 0) {
+                continue;
+            }
+
+            long allowed = evasions;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.line(king, from);
+            }
+
+            if ((allowed & toBit) != 0) {
+                moves[count++] = Move.of(from, to, 0);
+            }
+
+            int doubleTo = to + push;
+            long doubleBit = 1L << doubleTo;
+            if ((startRank & (1L << from)) != 0 && (occupied & doubleBit) == 0 && (allowed & doubleBit) != 0) {
+                moves[count++] = Move.of(from, doubleTo, Move.DOUBLE_PUSH);
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int[] moves, int count, int from, int to, int flags) {
+        moves[count++] = Move.promotion(from, to, PieceType.QUEEN, flags);
+        moves[count++] = Move.promotion(from, to, PieceType.ROOK, flags);
+        moves[count++] = Move.promotion(from, to, PieceType.BISHOP, flags);
+        moves[count++] = Move.promotion(from, to, PieceType.KNIGHT, flags);
+        return count;
+    }
+
+    // Castling is only generated when not in check; the transit squares are tested here
+    private static int generateCastling(Board board, int[] moves, int count, int us, int king, long occupied) {
+        int rights = board.getCastlingRights();
+        int kingSide = us == WHITE ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE;
+        int queenSide = us == WHITE ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE;
+        int base = us == WHITE ? 0 : 56;
+        long rooks = board.bitboard(us, ROOK);
+        int them = us ^ 1;
+        if (king != base + 4) {
+            return count;
+        }
+
+        if ((rights & kingSide) != 0 && (rooks & (1L << (base + 7))) != 0
+                && (occupied & (0x60L << base)) == 0
+                && attackersTo(board, base + 5, them, occupied) == 0
+                && attackersTo(board, base + 6, them, occupied) == 0) {
+            moves[count++] = Move.of(base + 4, base + 6, Move.CASTLE);
+        }
+        if ((rights & queenSide) != 0 && (rooks & (1L << base)) != 0
+                && (occupied & (0x0EL << base)) == 0
+                && attackersTo(board, base + 3, them, occupied) == 0
+                && attackersTo(board, base + 2, them, occupied) == 0) {
+            moves[count++] = Move.of(base + 4, base + 2, Move.CASTLE);
+        }
+        return count;
+    }
+}
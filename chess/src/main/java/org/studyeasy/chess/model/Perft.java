@@ -0,0 +1,162 @@
+package org.studyeasy.chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Counts the leaf nodes of the legal move tree to a fixed depth. Comparing against the
+// published counts checks the move generator and make/unmake; the timing gives nodes/second.
+//
+// Usage: Perft <depth> [fen] [--parallel]
+// Without a FEN the standard test positions are run and checked against known counts.
+public final class Perft {
+    // Standard test positions with their node counts for depths 1..n
+    private static final String[] POSITIONS = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+    private static final long[][] EXPECTED = {
+        {20, 400, 8902, 197281, 4865609, 119060324},
+        {48, 2039, 97862, 4085603, 193690690},
+        {14, 191, 2812, 43238, 674624, 11030083},
+        {6, 264, 9467, 422333, 15833292},
+        {44, 1486, 62379, 2103487, 89941194},
+        {46, 2079, 89890, 3894594, 164075551}
+    };
+
+    private Perft() {
+    }
+
+    public static long perft(Board board, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(board, depth, new int[depth][MoveGenerator.MAX_MOVES]);
+    }
+
+    // One move buffer per ply keeps the recursion allocation-free
+    private static long perft(Board board, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = board.generateLegalMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, buffers);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Splits the tree on the root moves, each searched on its own copy of the board
+    public static long parallelPerft(Board board, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(board, depth);
+        }
+        return pool.invoke(new RootTask(new Board(board), depth));
+    }
+
+    @SuppressWarnings("serial")
+    private static final class RootTask extends RecursiveTask<Long> {
+        private final Board board;
+        private final int depth;
+
+        RootTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = board.generateLegalMoves(moves);
+            List<RootMoveTask> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tasks.add(new RootMoveTask(board, moves[i], depth - 1));
+            }
+
+            long nodes = 0;
+            for (RootMoveTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class RootMoveTask extends RecursiveTask<Long> {
+        private final Board board;
+        private final int move;
+        private final int depth;
+
+        RootMoveTask(Board board, int move, int depth) {
+            this.board = new Board(board);
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            board.makeMove(move);
+            return perft(board, depth);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [fen] [--parallel]");
+            return;
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        if (depth < 1) {
+            System.out.println("Usage: Perft <depth> [fen] [--parallel]");
+            return;
+        }
+        boolean parallel = false;
+        String fen = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--parallel")) {
+                parallel = true;
+            } else {
+                fen = fen == null ? args[i] : fen + " " + args[i];
+            }
+        }
+
+        ForkJoinPool pool = parallel ? ForkJoinPool.commonPool() : null;
+        boolean passed = true;
+        if (fen != null) {
+            run(fen, depth, pool, -1);
+        } else {
+            for (int i = 0; i < POSITIONS.length; i++) {
+                long expected = depth <= EXPECTED[i].length ? EXPECTED[i][depth - 1] : -1;
+                passed &= run(POSITIONS[i], depth, pool, expected);
+            }
+        }
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean run(String fen, int depth, ForkJoinPool pool, long expected) {
+        Board board = Fen.parse(fen);
+        long start = System.nanoTime();
+        long nodes = pool != null ? parallelPerft(board, depth, pool) : perft(board, depth);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        long nodesPerSecond = nodes * 1_000_000_000L / elapsed;
+        String status = expected < 0 ? "" : nodes == expected ? "  OK" : "  FAILED (expected " + expected + ")";
+        System.out.printf("%s%n  depth %d: %,d nodes in %d ms, %,d nodes/s%s%n",
+                fen, depth, nodes, elapsed / 1_000_000, nodesPerSecond, status);
+        return expected < 0 || nodes == expected;
+    }
+}
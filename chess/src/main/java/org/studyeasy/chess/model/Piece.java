@@ -1,55 +1,107 @@
 package org.studyeasy.chess.model;
 
-public abstract class Piece {
+// Immutable piece: there is one shared instance per color and type, so boards copy
+// pieces by reference. Everything that changes during a game (castling rights, en passant,
+// which pieces have moved) lives in Board.
+public final class Piece {
+    private static final Piece[] PIECES = new Piece[12];
+
+    static {
+        for (PieceColor color : PieceColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                Piece piece = new Piece(color, type);
+                PIECES[piece.index] = piece;
+            }
+        }
+    }
+
     private final PieceColor color;
     private final PieceType type;
-    private boolean hasMoved = false;
-    
-    public Piece(PieceColor color, PieceType type) {
+    // color * 6 + type, the piece's bitboard and Zobrist index
+    private final int index;
+
+    private Piece(PieceColor color, PieceType type) {
         this.color = color;
         this.type = type;
+        this.index = color.ordinal() * 6 + type.ordinal();
+    }
+
+    public static Piece of(PieceColor color, PieceType type) {
+        return PIECES[color.ordinal() * 6 + type.ordinal()];
     }
-    
+
     public PieceColor getColor() {
         return color;
     }
-    
+
     public PieceType getType() {
         return type;
     }
-    
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-    
-    public void setMoved() {
-        this.hasMoved = true;
-    }
-    
-    public abstract boolean isValidMove(Board board, Position from, Position to);
-    
-    // Helper method to check if a position is occupied by a piece of the same color
-    protected boolean isSameColorPiece(Board board, Position position) {
-        Piece piece = board.getPiece(position);
-        return piece != null && piece.getColor() == this.color;
-    }
-    
-    // Helper method to check if a path is clear (for pieces that move in straight lines)
-    protected boolean isPathClear(Board board, Position from, Position to) {
-        int rowStep = Integer.compare(to.row(), from.row());
-        int colStep = Integer.compare(to.col(), from.col());
-        
-        int row = from.row() + rowStep;
-        int col = from.col() + colStep;
-        
-        while (row != to.row() || col != to.col()) {
-            if (board.getPiece(new Position(row, col)) != null) {
-                return false;
-            }
-            row += rowStep;
-            col += colStep;
+
+    int index() {
+        return index;
+    }
+
+    // Whether the piece's movement rules allow from -> to on this board. Leaving the king
+    // in check is not considered; Board.isValidMove checks full legality.
+    public boolean isValidMove(Board board, Position from, Position to) {
+        if (!from.isValid() || !to.isValid()) {
+            return false;
+        }
+        int fromSquare = Square.of(from);
+        int toSquare = Square.of(to);
+        long target = 1L << toSquare;
+
+        // Can't capture a piece of the same color
+        if ((board.getOccupancy(color) & target) != 0) {
+            return false;
+        }
+
+        long occupied = board.getOccupied();
+        return switch (type) {
+            case PAWN -> isValidPawnMove(board, fromSquare, toSquare, target, occupied);
+            case KNIGHT -> (Bitboards.knightAttacks(fromSquare) & target) != 0;
+            case BISHOP -> (Bitboards.bishopAttacks(fromSquare, occupied) & target) != 0;
+            case ROOK -> (Bitboards.rookAttacks(fromSquare, occupied) & target) != 0;
+            case QUEEN -> (Bitboards.queenAttacks(fromSquare, occupied) & target) != 0;
+            case KING -> (Bitboards.kingAttacks(fromSquare) & target) != 0
+                    || isValidCastling(board, fromSquare, toSquare, occupied);
+        };
+    }
+
+    private boolean isValidPawnMove(Board board, int from, int to, long target, long occupied) {
+        int forward = color == PieceColor.WHITE ? 8 : -8;
+
+        // Diagonal capture, including en passant onto the empty square behind a pawn
+        if ((Bitboards.pawnAttacks(color.ordinal(), from) & target) != 0) {
+            return (occupied & target) != 0 || to == board.getEnPassantSquare();
+        }
+
+        // Single square forward
+        if (to == from + forward) {
+            return (occupied & target) == 0;
+        }
+
+        // Double square forward from the starting rank
+        int startRank = color == PieceColor.WHITE ? 1 : 6;
+        return Square.rank(from) == startRank && to == from + 2 * forward
+                && (occupied & (target | (1L << (from + forward)))) == 0;
+    }
+
+    // The king moves two squares towards a rook, with the right still held and nothing
+    // in between. Whether the king passes through check is left to the legal move filter.
+    private boolean isValidCastling(Board board, int from, int to, long occupied) {
+        int base = color == PieceColor.WHITE ? 0 : 56;
+        if (from != base + 4 || (to != base + 6 && to != base + 2)) {
+            return false;
         }
-        
-        return true;
+        boolean kingside = to == base + 6;
+        int right = color == PieceColor.WHITE
+                ? (kingside ? Board.WHITE_KINGSIDE : Board.WHITE_QUEENSIDE)
+                : (kingside ? Board.BLACK_KINGSIDE : Board.BLACK_QUEENSIDE);
+        int rookSquare = kingside ? base + 7 : base;
+        return (board.getCastlingRights() & right) != 0
+                && board.getPiece(rookSquare) == of(color, PieceType.ROOK)
+                && (Bitboards.between(from, rookSquare) & occupied) == 0;
     }
 }
@@ -1,6 +1,23 @@
 package org.studyeasy.chess.model;
 
 public record Position(int row, int col) {
+    // One shared instance per board square, indexed by row * 8 + col
+    private static final Position[] SQUARES = new Position[64];
+    
+    static {
+        for (int i = 0; i < 64; i++) {
+            SQUARES[i] = new Position(i >>> 3, i & 7);
+        }
+    }
+    
+    // The shared instance for a square on the board; off-board coordinates get a new one
+    public static Position of(int row, int col) {
+        if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            return SQUARES[(row << 3) | col];
+        }
+        return new Position(row, col);
+    }
+    
     public boolean isValid() {
         return row >= 0 && row < 8 && col >= 0 && col < 8;
     }
@@ -22,6 +39,6 @@ public record Position(int row, int col) {
         int col = file - 'a';
         int row = 8 - rank;
         
-        return new Position(row, col);
+        return of(row, col);
     }
 }
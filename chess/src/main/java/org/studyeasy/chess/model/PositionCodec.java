@@ -0,0 +1,137 @@
+package org.studyeasy.chess.model;
+
+import java.nio.ByteBuffer;
+
+// Fixed-size binary form of a position, for storing positions in bulk. Encoding and
+// decoding into an existing board allocate nothing. Move history is not stored.
+//
+// Layout, 32 bytes:
+//   0-7    occupied squares, a1 = bit 0, most significant byte first
+//   8-23   one 4-bit piece code (color * 6 + type) per occupied square, in square order,
+//          low nibble first; unused nibbles are zero
+//   24     side to move (bit 0) and castling rights (bits 1-4)
+//   25     en passant square, or 0xFF
+//   26     halfmove clock
+//   27-28  fullmove number, most significant byte first
+//   29-31  zero
+public final class PositionCodec {
+    public static final int BYTES = 32;
+
+    private static final int MAX_PIECES = 32;
+    private static final int NO_EN_PASSANT = 0xFF;
+    // values() copies its array on every call
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    private PositionCodec() {
+    }
+
+    // Writes BYTES bytes at the buffer's position and advances it
+    public static void encode(Board board, ByteBuffer out) {
+        long occupied = board.getOccupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces to encode: " + Long.bitCount(occupied));
+        }
+        int halfmove = board.getHalfmoveClock();
+        int fullmove = board.getFullmoveNumber();
+        if (halfmove > 0xFF || fullmove > 0xFFFF) {
+            throw new IllegalArgumentException("Move counters out of range: " + halfmove + " " + fullmove);
+        }
+
+        putLong(out, occupied);
+        int nibbles = 0;
+        int written = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1) {
+            int code = board.pieceAt(Long.numberOfTrailingZeros(pieces)).index();
+            if ((written & 1) == 0) {
+                nibbles = code;
+            } else {
+                out.put((byte) (nibbles | code << 4));
+            }
+            written++;
+        }
+        if ((written & 1) != 0) {
+            out.put((byte) nibbles);
+            written++;
+        }
+        for (; written < MAX_PIECES; written += 2) {
+            out.put((byte) 0);
+        }
+
+        out.put((byte) (board.sideIndex() | board.getCastlingRights() << 1));
+        int enPassant = board.getEnPassantSquare();
+        out.put((byte) (enPassant == Square.NONE ? NO_EN_PASSANT : enPassant));
+        out.put((byte) halfmove);
+        out.put((byte) (fullmove >>> 8));
+        out.put((byte) fullmove);
+        out.put((byte) 0);
+        out.put((byte) 0);
+        out.put((byte) 0);
+    }
+
+    // Reads BYTES bytes at the buffer's position into the board, replacing its position
+    // and history
+    public static void decode(ByteBuffer in, Board board) {
+        long occupied = getLong(in);
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Corrupt position: too many pieces");
+        }
+
+        board.clear();
+        int nibbles = 0;
+        int read = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1) {
+            if ((read & 1) == 0) {
+                nibbles = in.get() & 0xFF;
+            }
+            int code = (read & 1) == 0 ? nibbles & 0x0F : nibbles >>> 4;
+            if (code >= 12) {
+                throw new IllegalArgumentException("Corrupt position: piece code " + code);
+            }
+            board.setPiece(Long.numberOfTrailingZeros(pieces), TYPES[code % 6], COLORS[code / 6]);
+            read++;
+        }
+        in.position(in.position() + (MAX_PIECES - read) / 2);
+
+        int flags = in.get() & 0xFF;
+        int enPassant = in.get() & 0xFF;
+        int halfmove = in.get() & 0xFF;
+        int fullmove = (in.get() & 0xFF) << 8 | (in.get() & 0xFF);
+        in.position(in.position() + 3);
+        if (enPassant != NO_EN_PASSANT && enPassant >= 64) {
+            throw new IllegalArgumentException("Corrupt position: en passant square " + enPassant);
+        }
+        board.setState((flags & 1) == 0 ? PieceColor.WHITE : PieceColor.BLACK, (flags >>> 1) & Board.ALL_CASTLING,
+                enPassant == NO_EN_PASSANT ? Square.NONE : enPassant, halfmove, fullmove);
+    }
+
+    public static byte[] encode(Board board) {
+        byte[] bytes = new byte[BYTES];
+        encode(board, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    public static Board decode(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Encoded position must be " + BYTES + " bytes, got " + bytes.length);
+        }
+        Board board = new Board();
+        decode(ByteBuffer.wrap(bytes), board);
+        return board;
+    }
+
+    // Byte by byte so the result does not depend on the buffer's byte order
+    private static void putLong(ByteBuffer out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.put((byte) (value >>> shift));
+        }
+    }
+
+    private static long getLong(ByteBuffer in) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (in.get() & 0xFF);
+        }
+        return value;
+    }
+}
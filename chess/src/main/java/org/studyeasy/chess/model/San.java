@@ -0,0 +1,200 @@
+package org.studyeasy.chess.model;
+
+// Standard Algebraic Notation (e4, Nbd7, exd8=Q+, O-O) for moves on a Board
+public final class San {
+    private San() {
+    }
+
+    // The SAN of a legal move in the board's current position
+    public static String toSan(Board board, int move) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        StringBuilder san = new StringBuilder(8);
+
+        if (Move.isCastle(move)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            PieceType type = board.getPiece(from).getType();
+            if (type == PieceType.PAWN) {
+                if (Move.isCapture(move)) {
+                    san.append((char) ('a' + Square.file(from)));
+                }
+            } else {
+                san.append(pieceLetter(type));
+                appendDisambiguation(san, board, moves, count, move, type);
+            }
+            if (Move.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(Square.name(to));
+            PieceType promotion = Move.promotionType(move);
+            if (promotion != null) {
+                san.append('=').append(pieceLetter(promotion));
+            }
+        }
+
+        // Check and mate marks come from the position after the move
+        board.makeMove(move);
+        if (board.isInCheck()) {
+            san.append(board.generateLegalMoves(moves) == 0 ? '#' : '+');
+        }
+        board.unmakeMove();
+        return san.toString();
+    }
+
+    public static int parse(Board board, CharSequence san) {
+        return parse(board, san, new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    // The legal move the SAN names, using the buffer for the move list. Annotations such
+    // as "+", "#", "!" and "?" are ignored; castling may be written with zeros.
+    public static int parse(Board board, CharSequence san, int[] moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end < 2) {
+            throw new IllegalArgumentException("Invalid SAN: " + san);
+        }
+        int count = board.generateLegalMoves(moves);
+
+        if (san.charAt(0) == 'O' || san.charAt(0) == '0') {
+            boolean kingside;
+            if (end == 3 && isCastling(san, 3)) {
+                kingside = true;
+            } else if (end == 5 && isCastling(san, 5)) {
+                kingside = false;
+            } else {
+                throw new IllegalArgumentException("Invalid SAN: " + san);
+            }
+            for (int i = 0; i < count; i++) {
+                if (Move.isCastle(moves[i]) && (Move.to(moves[i]) > Move.from(moves[i])) == kingside) {
+                    return moves[i];
+                }
+            }
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+
+        // Promotion piece, written "=Q" or just "Q"
+        PieceType promotion = null;
+        PieceType last = pieceType(san.charAt(end - 1));
+        if (last != null) {
+            promotion = last;
+            end -= san.charAt(end - 2) == '=' ? 2 : 1;
+        }
+        if (end < 2) {
+            throw new IllegalArgumentException("Invalid SAN: " + san);
+        }
+
+        int toFile = san.charAt(end - 2) - 'a';
+        int toRank = san.charAt(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            throw new IllegalArgumentException("Invalid SAN: " + san);
+        }
+        int to = toRank * 8 + toFile;
+
+        // Piece letter, then optional disambiguation and capture mark
+        int start = 0;
+        PieceType type = pieceType(san.charAt(0));
+        if (type == null) {
+            type = PieceType.PAWN;
+        } else {
+            start = 1;
+        }
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Invalid SAN: " + san);
+            }
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.isCastle(move) || board.getPiece(from).getType() != type
+                    || Move.promotionType(move) != promotion
+                    || (fromFile >= 0 && Square.file(from) != fromFile)
+                    || (fromRank >= 0 && Square.rank(from) != fromRank)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == Move.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    public static char pieceLetter(PieceType type) {
+        return switch (type) {
+            case PAWN -> 'P';
+            case ROOK -> 'R';
+            case KNIGHT -> 'N';
+            case BISHOP -> 'B';
+            case QUEEN -> 'Q';
+            case KING -> 'K';
+        };
+    }
+
+    // File first, then rank, then both, as far as needed to tell apart pieces of the same
+    // type that can reach the same square
+    private static void appendDisambiguation(StringBuilder san, Board board, int[] moves, int count,
+                                             int move, PieceType type) {
+        int from = Move.from(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (other == from || Move.to(moves[i]) != Move.to(move) || board.getPiece(other).getType() != type) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= Square.file(other) == Square.file(from);
+            sameRank |= Square.rank(other) == Square.rank(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + Square.file(from)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + Square.rank(from)));
+        } else {
+            san.append(Square.name(from));
+        }
+    }
+
+    private static boolean isCastling(CharSequence san, int length) {
+        char o = san.charAt(0);
+        for (int i = 0; i < length; i++) {
+            if (san.charAt(i) != (i % 2 == 0 ? o : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PieceType pieceType(char c) {
+        return switch (c) {
+            case 'R' -> PieceType.ROOK;
+            case 'N' -> PieceType.KNIGHT;
+            case 'B' -> PieceType.BISHOP;
+            case 'Q' -> PieceType.QUEEN;
+            case 'K' -> PieceType.KING;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package org.studyeasy.chess.model;
+
+// Square indices used by the bitboard core: a1 = 0, b1 = 1, ..., h8 = 63.
+// Position keeps the UI orientation (row 0 is rank 8), so conversions flip the row.
+public final class Square {
+    public static final int NONE = -1;
+
+    private Square() {
+    }
+
+    public static int of(int row, int col) {
+        return ((7 - row) << 3) | col;
+    }
+
+    public static int of(Position position) {
+        return of(position.row(), position.col());
+    }
+
+    public static int row(int square) {
+        return 7 - (square >>> 3);
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+
+    public static Position toPosition(int square) {
+        return Position.of(row(square), col(square));
+    }
+
+    public static String name(int square) {
+        return "" + (char) ('a' + file(square)) + (char) ('1' + rank(square));
+    }
+}
@@ -0,0 +1,29 @@
+package org.studyeasy.chess.model;
+
+// Starting time per side plus what is given back after each move. A Fischer increment is
+// always added; a Bronstein delay gives back the time the move took, up to the delay.
+public record TimeControl(long initialMillis, long incrementMillis, long delayMillis) {
+    public static final TimeControl NONE = new TimeControl(0, 0, 0);
+
+    public TimeControl {
+        if (initialMillis < 0 || incrementMillis < 0 || delayMillis < 0) {
+            throw new IllegalArgumentException("Time control values must not be negative");
+        }
+    }
+
+    public static TimeControl ofMinutes(int minutes) {
+        return new TimeControl(minutes * 60_000L, 0, 0);
+    }
+
+    public static TimeControl fischer(int minutes, int incrementSeconds) {
+        return new TimeControl(minutes * 60_000L, incrementSeconds * 1000L, 0);
+    }
+
+    public static TimeControl bronstein(int minutes, int delaySeconds) {
+        return new TimeControl(minutes * 60_000L, 0, delaySeconds * 1000L);
+    }
+
+    public boolean isTimed() {
+        return initialMillis > 0;
+    }
+}
@@ -0,0 +1,51 @@
+package org.studyeasy.chess.model;
+
+import java.util.SplittableRandom;
+
+// Random keys for Zobrist hashing. A fixed seed keeps keys stable between runs, so
+// hashes can be stored in caches and databases.
+final class Zobrist {
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2F0C8E5A1B3D4C97L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        // Castling keys are built from one key per right, so any combination XORs cleanly
+        long[] rightKeys = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int rights = 0; rights < 16; rights++) {
+            for (int bit = 0; bit < 4; bit++) {
+                if ((rights & (1 << bit)) != 0) {
+                    CASTLING[rights] ^= rightKeys[bit];
+                }
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int bitboardIndex, int square) {
+        return PIECE_SQUARE[(bitboardIndex << 6) | square];
+    }
+
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    static long enPassant(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+
+    static long side() {
+        return SIDE;
+    }
+}
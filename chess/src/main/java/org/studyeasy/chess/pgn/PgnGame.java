@@ -0,0 +1,23 @@
+package org.studyeasy.chess.pgn;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Fen;
+
+import java.util.Map;
+
+// One game: its tag pairs in file order, the packed moves from the start position and the
+// result ("1-0", "0-1", "1/2-1/2" or "*"). startFen is null for the standard start.
+public record PgnGame(Map<String, String> tags, String startFen, int[] moves, String result) {
+    public Board startBoard() {
+        return startFen == null ? new Board() : Fen.parse(startFen);
+    }
+
+    // The board after every move has been played
+    public Board finalBoard() {
+        Board board = startBoard();
+        for (int move : moves) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,410 @@
+package org.studyeasy.chess.pgn;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Fen;
+import org.studyeasy.chess.model.MoveGenerator;
+import org.studyeasy.chess.model.PositionCodec;
+import org.studyeasy.chess.model.San;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Reads PGN files of any size. The file is memory-mapped in segments cut at game
+// boundaries; each segment is split further at game boundaries and the pieces are parsed
+// on a fork-join pool, replaying every move through a Board to resolve the SAN.
+//
+// A game starts at a tag line ('[' then a letter) that does not follow another tag line.
+public final class PgnReader {
+    // Mapped segments are about this big; a buffer can address at most 2 GB
+    private static final long SEGMENT_BYTES = 256L << 20;
+    // Ranges bigger than this are split in two
+    private static final int SPLIT_BYTES = 1 << 20;
+    // How far past a segment's nominal end to look for a game boundary at first, and how
+    // far back to look for the line before it
+    private static final int WINDOW_BYTES = 1 << 20;
+    private static final int BACK_BYTES = 64 << 10;
+    private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2"};
+
+    public record Summary(long games, long skipped) {
+    }
+
+    private final Path file;
+    private final int parallelism;
+
+    public PgnReader(Path file) {
+        this(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public PgnReader(Path file, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.file = file;
+        this.parallelism = parallelism;
+    }
+
+    // Parses every game and passes it to the consumer, which is called from several
+    // threads at once and in no particular order. Games with unreadable or illegal moves
+    // are skipped and counted.
+    public Summary read(Consumer<PgnGame> consumer) throws IOException {
+        LongAdder games = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = segmentEnd(channel, start, size);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                pool.invoke(new ParseTask(segment, 0, (int) (end - start), consumer, games, skipped));
+                start = end;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return new Summary(games.sum(), skipped.sum());
+    }
+
+    // The first game boundary at least SEGMENT_BYTES after start, or the end of the file
+    private static long segmentEnd(FileChannel channel, long start, long size) throws IOException {
+        if (size - start <= SEGMENT_BYTES) {
+            return size;
+        }
+        long candidate = start + SEGMENT_BYTES;
+        for (long window = WINDOW_BYTES; ; window *= 2) {
+            long from = Math.max(start, candidate - BACK_BYTES);
+            long to = Math.min(size, candidate + window);
+            if (to - start > Integer.MAX_VALUE) {
+                throw new IOException("No game boundary within 2 GB after offset " + start + " of " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            int found = nextGameStart(buffer, 0, (int) (candidate - from), (int) (to - from), from == start);
+            if (found >= 0) {
+                return from + found;
+            }
+            if (to == size) {
+                return size;
+            }
+        }
+    }
+
+    // The first game start in [from, limit), or -1. Looks back as far as lo for the line
+    // before; if that line cannot be seen, the first line is not taken as a boundary.
+    static int nextGameStart(ByteBuffer data, int lo, int from, int limit, boolean loIsLineStart) {
+        int line = from;
+        if (line > lo && data.get(line - 1) != '\n') {
+            line = nextLine(data, line, limit);
+        }
+
+        boolean previousIsTag = true;
+        if (line > lo) {
+            int k = line - 2;
+            while (k >= lo && data.get(k) != '\n') {
+                k--;
+            }
+            if (k >= lo) {
+                previousIsTag = isTagLine(data, k + 1, limit);
+            } else if (loIsLineStart) {
+                previousIsTag = isTagLine(data, lo, limit);
+            }
+        }
+
+        while (line < limit) {
+            boolean tag = isTagLine(data, line, limit);
+            if (tag && !previousIsTag) {
+                return line;
+            }
+            previousIsTag = tag;
+            line = nextLine(data, line, limit);
+        }
+        return -1;
+    }
+
+    private static int nextLine(ByteBuffer data, int position, int limit) {
+        while (position < limit && data.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static boolean isTagLine(ByteBuffer data, int position, int limit) {
+        if (position + 1 >= limit || data.get(position) != '[') {
+            return false;
+        }
+        int c = data.get(position + 1);
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ParseTask extends RecursiveAction {
+        private final ByteBuffer data;
+        private final int start;
+        private final int end;
+        private final Consumer<PgnGame> consumer;
+        private final LongAdder games;
+        private final LongAdder skipped;
+
+        ParseTask(ByteBuffer data, int start, int end, Consumer<PgnGame> consumer, LongAdder games, LongAdder skipped) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            this.consumer = consumer;
+            this.games = games;
+            this.skipped = skipped;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > SPLIT_BYTES) {
+                int middle = nextGameStart(data, start, start + (end - start) / 2, end, true);
+                if (middle > start && middle < end) {
+                    invokeAll(new ParseTask(data, start, middle, consumer, games, skipped),
+                            new ParseTask(data, middle, end, consumer, games, skipped));
+                    return;
+                }
+            }
+            new GameParser(data, start, end).parseAll(consumer, games, skipped);
+        }
+    }
+
+    // Parses the games in one range. Only absolute reads are used, so parsers on other
+    // threads can share the buffer.
+    private static final class GameParser {
+        // The standard start, decoded into the reused board before each game
+        private static final byte[] START_POSITION = PositionCodec.encode(new Board());
+
+        private final ByteBuffer data;
+        private final int end;
+        private int position;
+
+        private final ByteBuffer start = ByteBuffer.wrap(START_POSITION);
+        private final Board startBoard = new Board();
+        private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        private final StringBuilder token = new StringBuilder(16);
+        private byte[] text = new byte[64];
+        private int[] moves = new int[256];
+
+        GameParser(ByteBuffer data, int start, int end) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        void parseAll(Consumer<PgnGame> consumer, LongAdder games, LongAdder skipped) {
+            while (skipWhitespace()) {
+                int before = position;
+                PgnGame game = parseGame();
+                if (game != null) {
+                    games.increment();
+                    consumer.accept(game);
+                } else {
+                    skipped.increment();
+                }
+                if (position == before) {
+                    // Stray character outside any game
+                    position++;
+                }
+            }
+        }
+
+        // The next game, or null if it cannot be replayed
+        private PgnGame parseGame() {
+            Map<String, String> tags = new LinkedHashMap<>();
+            while (position < end && get(position) == '[') {
+                parseTag(tags);
+                skipWhitespace();
+            }
+
+            String fen = tags.get("FEN");
+            Board board = startBoard;
+            boolean valid = true;
+            try {
+                if (fen != null) {
+                    board = Fen.parse(fen);
+                } else {
+                    start.clear();
+                    PositionCodec.decode(start, board);
+                }
+            } catch (IllegalArgumentException e) {
+                valid = false;
+            }
+
+            String result = tags.getOrDefault("Result", "*");
+            int count = 0;
+            while (position < end) {
+                int c = get(position);
+                if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                    position++;
+                } else if (c == '[' && (position == 0 || get(position - 1) == '\n')) {
+                    // The next game, this one had no result token
+                    break;
+                } else if (c == '{') {
+                    skipPast('}');
+                } else if (c == ';' || (c == '%' && (position == 0 || get(position - 1) == '\n'))) {
+                    skipPast('\n');
+                } else if (c == '(') {
+                    skipVariation();
+                } else if (c == '$') {
+                    position++;
+                    while (position < end && Character.isDigit(get(position))) {
+                        position++;
+                    }
+                } else if (c == '*') {
+                    position++;
+                    result = "*";
+                    break;
+                } else if (Character.isDigit(c) && !matches("0-0")) {
+                    // Castling written with zeros falls through to the move tokens below
+                    String terminator = matchResult();
+                    if (terminator != null) {
+                        result = terminator;
+                        break;
+                    }
+                    // Move number such as "12." or "12..."
+                    while (position < end && (Character.isDigit(get(position)) || get(position) == '.')) {
+                        position++;
+                    }
+                } else {
+                    readToken();
+                    if (valid && token.length() > 0) {
+                        try {
+                            int move = San.parse(board, token, legalMoves);
+                            board.makeMove(move);
+                            if (count == moves.length) {
+                                moves = Arrays.copyOf(moves, count * 2);
+                            }
+                            moves[count++] = move;
+                        } catch (IllegalArgumentException e) {
+                            valid = false;
+                        }
+                    } else if (token.length() == 0) {
+                        position++;
+                    }
+                }
+            }
+            return valid ? new PgnGame(tags, fen, Arrays.copyOf(moves, count), result) : null;
+        }
+
+        // [Name "value"], with \" and \\ escapes in the value
+        private void parseTag(Map<String, String> tags) {
+            int lineEnd = position;
+            while (lineEnd < end && get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int p = position + 1;
+            int nameStart = p;
+            while (p < lineEnd && get(p) > ' ' && get(p) != '"') {
+                p++;
+            }
+            int nameEnd = p;
+            while (p < lineEnd && get(p) != '"') {
+                p++;
+            }
+            if (p < lineEnd && nameEnd > nameStart) {
+                int length = 0;
+                for (p++; p < lineEnd && get(p) != '"'; p++) {
+                    int c = get(p);
+                    if (c == '\\' && p + 1 < lineEnd) {
+                        c = get(++p);
+                    }
+                    if (length == text.length) {
+                        text = Arrays.copyOf(text, length * 2);
+                    }
+                    text[length++] = (byte) c;
+                }
+                tags.put(ascii(nameStart, nameEnd), new String(text, 0, length, StandardCharsets.UTF_8));
+            }
+            position = Math.min(end, lineEnd + 1);
+        }
+
+        private String matchResult() {
+            for (String result : RESULTS) {
+                if (matches(result)) {
+                    position += result.length();
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(String text) {
+            if (position + text.length() > end) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (get(position + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void readToken() {
+            token.setLength(0);
+            while (position < end) {
+                int c = get(position);
+                if (c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '$') {
+                    break;
+                }
+                token.append((char) c);
+                position++;
+            }
+        }
+
+        private void skipVariation() {
+            int depth = 0;
+            while (position < end) {
+                int c = get(position);
+                if (c == '{') {
+                    skipPast('}');
+                    continue;
+                }
+                position++;
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void skipPast(char c) {
+            while (position < end && get(position) != c) {
+                position++;
+            }
+            position = Math.min(end, position + 1);
+        }
+
+        // Returns false at the end of the range
+        private boolean skipWhitespace() {
+            while (position < end && get(position) <= ' ') {
+                position++;
+            }
+            return position < end;
+        }
+
+        private String ascii(int from, int to) {
+            char[] chars = new char[to - from];
+            for (int i = from; i < to; i++) {
+                chars[i - from] = (char) get(i);
+            }
+            return new String(chars);
+        }
+
+        private int get(int index) {
+            return data.get(index) & 0xFF;
+        }
+    }
+}
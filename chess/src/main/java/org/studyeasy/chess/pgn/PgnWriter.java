@@ -0,0 +1,97 @@
+package org.studyeasy.chess.pgn;
+
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.San;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+// Export format PGN: the seven standard tags first, then any others, then the moves in
+// SAN wrapped at 80 columns
+public final class PgnWriter {
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_WIDTH = 80;
+
+    private PgnWriter() {
+    }
+
+    public static String toPgn(PgnGame game) {
+        StringBuilder pgn = new StringBuilder(512);
+        try {
+            write(game, pgn);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return pgn.toString();
+    }
+
+    public static void write(PgnGame game, Appendable out) throws IOException {
+        Map<String, String> tags = game.tags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.result() : tags.getOrDefault(name, "?");
+            writeTag(out, name, value);
+        }
+        if (game.startFen() != null) {
+            writeTag(out, "SetUp", "1");
+            writeTag(out, "FEN", game.startFen());
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isRosterTag(tag.getKey()) && !tag.getKey().equals("SetUp") && !tag.getKey().equals("FEN")) {
+                writeTag(out, tag.getKey(), tag.getValue());
+            }
+        }
+        out.append('\n');
+
+        Board board = game.startBoard();
+        StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+        boolean first = true;
+        for (int move : game.moves()) {
+            // Black's first move from a set-up position still needs its number
+            if (board.getSideToMove() == PieceColor.WHITE) {
+                appendToken(out, line, board.getFullmoveNumber() + ".");
+            } else if (first) {
+                appendToken(out, line, board.getFullmoveNumber() + "...");
+            }
+            appendToken(out, line, San.toSan(board, move));
+            board.makeMove(move);
+            first = false;
+        }
+        appendToken(out, line, game.result());
+        out.append(line).append("\n\n");
+    }
+
+    private static void appendToken(Appendable out, StringBuilder line, String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+            out.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+
+    private static void writeTag(Appendable out, String name, String value) throws IOException {
+        out.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        out.append("\"]\n");
+    }
+
+    private static boolean isRosterTag(String name) {
+        for (String roster : SEVEN_TAG_ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package org.studyeasy.chess.ui;
+
+import javafx.scene.Node;
+import org.studyeasy.chess.model.Board;
+
+// A way of drawing the board. ChessBoard tells the view what changed and receives clicks
+// back in UI coordinates (row 0 is rank 8).
+public interface BoardView {
+    interface SquareClickHandler {
+        void squareClicked(int row, int col);
+    }
+
+    Node getNode();
+
+    // Bring every square in line with the board
+    void showPosition(Board board);
+
+    // Bring the given squares (a1 = bit 0) in line with the board
+    void showSquares(Board board, long squareMask);
+
+    void setSquareSize(int size);
+
+    void setHighlighted(int row, int col, boolean highlighted);
+}
@@ -0,0 +1,185 @@
+package org.studyeasy.chess.ui;
+
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Piece;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+import org.studyeasy.chess.model.Square;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// The board drawn onto a single Canvas, for machines where a scene graph of 64 squares
+// and 32 image nodes is too heavy. Piece sprites are scaled once per square size and kept
+// in a small LRU cache, so resizing back and forth does not rescale them again. Clicks are
+// mapped to squares by dividing the mouse position by the square size.
+public class CanvasBoardView extends Canvas implements BoardView {
+    // Square sizes whose scaled sprites are kept
+    private static final int SPRITE_CACHE_SIZES = 4;
+
+    private static final PieceColor[] COLORS = PieceColor.values();
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final Function<Piece, Image> images;
+    // Sprites indexed by color * 6 + type, per square size, least recently used first
+    private final Map<Integer, Image[]> spriteCache = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Image[]> eldest) {
+            return size() > SPRITE_CACHE_SIZES;
+        }
+    };
+    // What each square currently shows, indexed a1 = 0
+    private final Piece[] shownPieces = new Piece[64];
+    private Image[] sprites;
+    private int squareSize;
+    private int highlightedSquare = Square.NONE;
+
+    public CanvasBoardView(int squareSize, Function<Piece, Image> images, SquareClickHandler clickHandler) {
+        super(squareSize * 8, squareSize * 8);
+        this.squareSize = squareSize;
+        this.images = images;
+        this.sprites = spritesFor(squareSize);
+
+        setOnMouseClicked(e -> {
+            int col = (int) (e.getX() / this.squareSize);
+            int row = (int) (e.getY() / this.squareSize);
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                clickHandler.squareClicked(row, col);
+            }
+        });
+        drawAll();
+    }
+
+    @Override
+    public Node getNode() {
+        return this;
+    }
+
+    @Override
+    public void showPosition(Board board) {
+        for (int square = 0; square < 64; square++) {
+            shownPieces[square] = board.getPiece(square);
+        }
+        drawAll();
+    }
+
+    @Override
+    public void showSquares(Board board, long squareMask) {
+        GraphicsContext gc = getGraphicsContext2D();
+        while (squareMask != 0) {
+            int square = Long.numberOfTrailingZeros(squareMask);
+            squareMask &= squareMask - 1;
+            Piece piece = board.getPiece(square);
+            if (piece != shownPieces[square]) {
+                shownPieces[square] = piece;
+                drawSquare(gc, square);
+            }
+        }
+    }
+
+    @Override
+    public void setSquareSize(int size) {
+        if (size == squareSize) {
+            return;
+        }
+        squareSize = size;
+        sprites = spritesFor(size);
+        setWidth(size * 8);
+        setHeight(size * 8);
+        drawAll();
+    }
+
+    @Override
+    public void setHighlighted(int row, int col, boolean highlighted) {
+        int square = Square.of(row, col);
+        int previous = highlightedSquare;
+        if (highlighted) {
+            highlightedSquare = square;
+        } else if (square == highlightedSquare) {
+            highlightedSquare = Square.NONE;
+        }
+
+        GraphicsContext gc = getGraphicsContext2D();
+        if (previous != Square.NONE && previous != highlightedSquare) {
+            drawSquare(gc, previous);
+        }
+        drawSquare(gc, square);
+    }
+
+    private void drawAll() {
+        GraphicsContext gc = getGraphicsContext2D();
+        for (int square = 0; square < 64; square++) {
+            drawSquare(gc, square);
+        }
+    }
+
+    private void drawSquare(GraphicsContext gc, int square) {
+        int row = Square.row(square);
+        int col = Square.col(square);
+        double x = col * squareSize;
+        double y = row * squareSize;
+
+        gc.setFill((row + col) % 2 == 0 ? Color.BEIGE : Color.BROWN);
+        gc.fillRect(x, y, squareSize, squareSize);
+
+        Piece piece = shownPieces[square];
+        if (piece != null) {
+            Image sprite = sprites[piece.getColor().ordinal() * 6 + piece.getType().ordinal()];
+            if (sprite != null) {
+                gc.drawImage(sprite, x + 5, y + 5);
+            } else {
+                // Fall back to a text representation if the image is not available
+                gc.setFill(piece.getColor() == PieceColor.WHITE ? Color.WHITE : Color.BLACK);
+                gc.setFont(Font.font(null, FontWeight.BOLD, squareSize / 2.0));
+                gc.setTextAlign(TextAlignment.CENTER);
+                gc.setTextBaseline(VPos.CENTER);
+                gc.fillText(piece.getType().toString().substring(0, 1), x + squareSize / 2.0, y + squareSize / 2.0);
+            }
+        }
+
+        if (square == highlightedSquare) {
+            gc.setStroke(Color.BLUE);
+            gc.setLineWidth(3);
+            gc.strokeRect(x + 1.5, y + 1.5, squareSize - 3, squareSize - 3);
+        }
+    }
+
+    // Sprites scaled to fit a square of the given size, with the same 5px margin as the
+    // node-based board
+    private Image[] spritesFor(int size) {
+        Image[] cached = spriteCache.get(size);
+        if (cached != null) {
+            return cached;
+        }
+
+        Image[] scaled = new Image[12];
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        for (PieceColor color : COLORS) {
+            for (PieceType type : TYPES) {
+                Image source = images.apply(Piece.of(color, type));
+                if (source != null) {
+                    ImageView view = new ImageView(source);
+                    view.setFitWidth(size - 10);
+                    view.setFitHeight(size - 10);
+                    view.setSmooth(true);
+                    scaled[color.ordinal() * 6 + type.ordinal()] = view.snapshot(parameters, null);
+                }
+            }
+        }
+        spriteCache.put(size, scaled);
+        return scaled;
+    }
+}
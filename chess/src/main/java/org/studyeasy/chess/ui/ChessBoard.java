@@ -13,53 +13,83 @@ import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import org.studyeasy.chess.ai.AsyncChessEngine;
+import org.studyeasy.chess.ai.ChessEngine;
 import org.studyeasy.chess.ai.OpenAIChessEngine;
+import org.studyeasy.chess.ai.OpeningBook;
+import org.studyeasy.chess.ai.Tablebases;
 import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.GameClock;
+import org.studyeasy.chess.model.Move;
+import org.studyeasy.chess.model.MoveGenerator;
 import org.studyeasy.chess.model.Piece;
 import org.studyeasy.chess.model.PieceColor;
 import org.studyeasy.chess.model.PieceType;
 import org.studyeasy.chess.model.Position;
+import org.studyeasy.chess.model.Square;
+import org.studyeasy.chess.model.TimeControl;
+import org.studyeasy.chess.pgn.PgnGame;
+import org.studyeasy.chess.pgn.PgnWriter;
 import org.studyeasy.chess.ui.MainMenu.GameMode;
+import org.studyeasy.chess.ui.MainMenu.RendererType;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 public class ChessBoard extends BorderPane {
     private static final int MIN_SQUARE_SIZE = 60;
+    // Share of the AI's remaining clock it may spend on one move, and the budget
+    // when there is no clock
+    private static final int MOVES_TO_GO = 30;
+    private static final long MIN_AI_MOVE_MILLIS = 100;
+    private static final long UNTIMED_AI_MOVE_MILLIS = 30_000;
+    // How often the clock labels are redrawn, and below how much time they show tenths
+    private static final Duration CLOCK_REFRESH = Duration.millis(50);
+    private static final long SHOW_TENTHS_BELOW_MILLIS = 20_000;
+    // Finished games are saved here as PGN
+    private static final Path GAMES_DIRECTORY = Path.of(System.getProperty("user.home"), ".chess", "games");
     private int currentSquareSize = 80;
     private final Board board;
     private final GameMode gameMode;
     private Position selectedPosition;
-    private OpenAIChessEngine aiEngine;
+    private ChessEngine aiEngine;
+    // Runs the engine off the JavaFX application thread
+    private AsyncChessEngine aiRunner;
+    // Shared by all games; null when there is no book file
+    private final OpeningBook openingBook = OpeningBook.getDefault();
+    // Shared by all games; null when there are no endgame tables
+    private final Tablebases tablebases = Tablebases.getDefault();
     private final List<String> moveHistory = new ArrayList<>();
-    private final Rectangle[][] squares = new Rectangle[8][8];
+    // The same moves packed, for the PGN record
+    private final List<Integer> playedMoves = new ArrayList<>();
+    private String result = "*";
     private PieceColor currentTurn = PieceColor.WHITE; // White moves first
     
-    // Timer related fields
-    private final int timeControlMinutes;
-    private int whiteTimeSeconds;
-    private int blackTimeSeconds;
-    private Timeline whiteTimer;
-    private Timeline blackTimer;
+    // Timer related fields; the clock keeps the time and the labels only show it
+    private final GameClock clock;
+    private Timeline clockDisplay;
     private Label whiteTimerLabel;
     private Label blackTimerLabel;
     private boolean gameEnded = false;
-    
-    // Map to cache piece images
-    private final Map<String, Image> pieceImages = new HashMap<>();
+    // Set while the engine works on black's move off the FX thread
+    private boolean aiThinking = false;
     
     // Lists to track captured pieces
     private final List<Piece> capturedByWhite = new ArrayList<>();
@@ -68,42 +98,42 @@ public class ChessBoard extends BorderPane {
     // UI elements for captured pieces
     private final HBox whiteCapturedPiecesBox = new HBox(5);
     private final HBox blackCapturedPiecesBox = new HBox(5);
-    private final GridPane boardGrid = new GridPane();
+    private final BoardView boardView;
     private final VBox centerBox = new VBox(10);
     
     // Constructor for friend mode (no API key needed)
     public ChessBoard(GameMode gameMode, int timeControlMinutes) {
+        this(gameMode, timeControlMinutes, RendererType.NODES);
+    }
+    
+    public ChessBoard(GameMode gameMode, int timeControlMinutes, RendererType rendererType) {
+        this(gameMode, TimeControl.ofMinutes(timeControlMinutes), rendererType);
+    }
+    
+    public ChessBoard(GameMode gameMode, TimeControl timeControl, RendererType rendererType) {
         this.gameMode = gameMode;
-        this.timeControlMinutes = timeControlMinutes;
         this.board = new Board();
         
-        // Initialize timers
-        this.whiteTimeSeconds = timeControlMinutes * 60;
-        this.blackTimeSeconds = timeControlMinutes * 60;
+        // Initialize the clock
+        this.clock = timeControl.isTimed() ? new GameClock(timeControl) : null;
         
         setPadding(new Insets(20));
         
         // Setup captured pieces areas
         setupCapturedPiecesAreas();
         
-        // Setup board grid
-        boardGrid.setPadding(new Insets(0));
-        boardGrid.setHgap(0);
-        boardGrid.setVgap(0);
-        boardGrid.setAlignment(Pos.CENTER);
-        
-        // Load piece images
-        loadPieceImages();
-
-        drawBoard();
-        setupPieces();
+        // Piece images come from the shared atlas, usually already loaded by the time a game starts
+        boardView = rendererType == RendererType.CANVAS
+                ? new CanvasBoardView(currentSquareSize, PieceImages::get, this::handleSquareClick)
+                : new GridBoardView(currentSquareSize, PieceImages::get, this::handleSquareClick);
+        boardView.showPosition(board);
         
         // Add board to center box
-        centerBox.getChildren().add(boardGrid);
+        centerBox.getChildren().add(boardView.getNode());
         centerBox.setAlignment(Pos.CENTER);
         
         // Setup layout based on time control
-        if (timeControlMinutes > 0) {
+        if (clock != null) {
             // With time control
             setupTimerDisplay();
             initializeTimers();
@@ -119,7 +149,7 @@ public class ChessBoard extends BorderPane {
         heightProperty().addListener((obs, oldVal, newVal) -> resizeBoard());
         
         // Start white's timer if time control is enabled
-        if (timeControlMinutes > 0) {
+        if (clock != null) {
             startTimer(PieceColor.WHITE);
         }
     }
@@ -129,6 +159,24 @@ public class ChessBoard extends BorderPane {
         this(gameMode, timeControlMinutes);
         if (gameMode == GameMode.AI && apiKey != null && !apiKey.trim().isEmpty()) {
             this.aiEngine = new OpenAIChessEngine(apiKey);
+            this.aiRunner = new AsyncChessEngine(aiEngine);
+        }
+    }
+    
+    // Constructor for AI mode with any engine
+    public ChessBoard(GameMode gameMode, ChessEngine aiEngine, int timeControlMinutes) {
+        this(gameMode, aiEngine, timeControlMinutes, RendererType.NODES);
+    }
+    
+    public ChessBoard(GameMode gameMode, ChessEngine aiEngine, int timeControlMinutes, RendererType rendererType) {
+        this(gameMode, aiEngine, TimeControl.ofMinutes(timeControlMinutes), rendererType);
+    }
+    
+    public ChessBoard(GameMode gameMode, ChessEngine aiEngine, TimeControl timeControl, RendererType rendererType) {
+        this(gameMode, timeControl, rendererType);
+        if (gameMode == GameMode.AI) {
+            this.aiEngine = aiEngine;
+            this.aiRunner = aiEngine != null ? new AsyncChessEngine(aiEngine) : null;
         }
     }
     
@@ -154,8 +202,8 @@ public class ChessBoard extends BorderPane {
     
     private void setupTimerDisplay() {
         // Create timer labels
-        whiteTimerLabel = new Label(formatTime(whiteTimeSeconds));
-        blackTimerLabel = new Label(formatTime(blackTimeSeconds));
+        whiteTimerLabel = new Label(formatTime(clock.getRemainingMillis(PieceColor.WHITE)));
+        blackTimerLabel = new Label(formatTime(clock.getRemainingMillis(PieceColor.BLACK)));
         
         // Style the timer labels
         String timerStyle = "-fx-background-color: #e0e0e0; -fx-padding: 10px; -fx-border-color: #cccccc; -fx-border-radius: 5px;";
@@ -193,64 +241,54 @@ public class ChessBoard extends BorderPane {
     }
     
     private void initializeTimers() {
-        // Create white player's timer
-        whiteTimer = new Timeline(
-            new KeyFrame(Duration.seconds(1), e -> {
-                if (whiteTimeSeconds > 0) {
-                    whiteTimeSeconds--;
-                    whiteTimerLabel.setText(formatTime(whiteTimeSeconds));
-                    
-                    // Change color to red when time is running low (less than 30 seconds)
-                    if (whiteTimeSeconds < 30) {
-                        whiteTimerLabel.setTextFill(Color.RED);
-                    }
-                    
-                    if (whiteTimeSeconds == 0) {
-                        handleTimeOut(PieceColor.WHITE);
-                    }
-                }
-            })
-        );
-        whiteTimer.setCycleCount(Timeline.INDEFINITE);
+        // Redraw often enough that tenths of a second show smoothly; how often this runs
+        // has no effect on the time itself
+        clockDisplay = new Timeline(new KeyFrame(CLOCK_REFRESH, e -> updateClockDisplay()));
+        clockDisplay.setCycleCount(Timeline.INDEFINITE);
+        clockDisplay.play();
+    }
+    
+    private void updateClockDisplay() {
+        updateClockLabel(whiteTimerLabel, clock.getRemainingMillis(PieceColor.WHITE));
+        updateClockLabel(blackTimerLabel, clock.getRemainingMillis(PieceColor.BLACK));
         
-        // Create black player's timer
-        blackTimer = new Timeline(
-            new KeyFrame(Duration.seconds(1), e -> {
-                if (blackTimeSeconds > 0) {
-                    blackTimeSeconds--;
-                    blackTimerLabel.setText(formatTime(blackTimeSeconds));
-                    
-                    // Change color to red when time is running low (less than 30 seconds)
-                    if (blackTimeSeconds < 30) {
-                        blackTimerLabel.setTextFill(Color.RED);
-                    }
-                    
-                    if (blackTimeSeconds == 0) {
-                        handleTimeOut(PieceColor.BLACK);
-                    }
-                }
-            })
-        );
-        blackTimer.setCycleCount(Timeline.INDEFINITE);
+        PieceColor flagged = clock.getFlagged();
+        if (flagged != null) {
+            handleTimeOut(flagged);
+        }
     }
     
-    private String formatTime(int totalSeconds) {
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format("%02d:%02d", minutes, seconds);
+    private void updateClockLabel(Label label, long remainingMillis) {
+        String text = formatTime(remainingMillis);
+        if (!text.equals(label.getText())) {
+            label.setText(text);
+        }
+        // Change color to red when time is running low (less than 30 seconds)
+        label.setTextFill(remainingMillis < 30_000 ? Color.RED : Color.BLACK);
+    }
+    
+    private String formatTime(long millis) {
+        if (millis < SHOW_TENTHS_BELOW_MILLIS) {
+            return String.format("%02d.%d", millis / 1000, millis % 1000 / 100);
+        }
+        long totalSeconds = millis / 1000;
+        return String.format("%02d:%02d", totalSeconds / 60, totalSeconds % 60);
     }
     
     private void startTimer(PieceColor color) {
-        if (timeControlMinutes <= 0) return; // No time control
+        if (clock == null) return; // No time control
+        
+        // Starting one side's clock completes the other side's move
+        if (!clock.start(color)) {
+            handleTimeOut(clock.getFlagged());
+            return;
+        }
+        updateClockDisplay();
         
         if (color == PieceColor.WHITE) {
-            blackTimer.stop();
-            whiteTimer.play();
             whiteTimerLabel.setStyle(whiteTimerLabel.getStyle() + "-fx-border-width: 3px; -fx-border-color: blue;");
             blackTimerLabel.setStyle(blackTimerLabel.getStyle().replace("-fx-border-width: 3px; -fx-border-color: blue;", ""));
         } else {
-            whiteTimer.stop();
-            blackTimer.play();
             blackTimerLabel.setStyle(blackTimerLabel.getStyle() + "-fx-border-width: 3px; -fx-border-color: blue;");
             whiteTimerLabel.setStyle(whiteTimerLabel.getStyle().replace("-fx-border-width: 3px; -fx-border-color: blue;", ""));
         }
@@ -260,13 +298,14 @@ public class ChessBoard extends BorderPane {
         if (gameEnded) return;
         
         gameEnded = true;
+        cancelAIMove();
         
-        // Stop both timers
-        if (whiteTimer != null) whiteTimer.stop();
-        if (blackTimer != null) blackTimer.stop();
+        // Stop the clock and its display
+        stopClock();
         
         // Determine the winner
         String winner = (color == PieceColor.WHITE) ? "Black" : "White";
+        result = (color == PieceColor.WHITE) ? "0-1" : "1-0";
         
         // Show game over dialog
         Platform.runLater(() -> {
@@ -283,48 +322,6 @@ public class ChessBoard extends BorderPane {
         });
     }
     
-    private void loadPieceImages() {
-        // Load images for each piece type and color
-        for (PieceColor color : PieceColor.values()) {
-            for (PieceType type : PieceType.values()) {
-                String colorName = color.toString().toLowerCase();
-                String typeName = type.toString().toLowerCase();
-                String imagePath = "/images/chess/" + colorName + "_" + typeName + ".png";
-                
-                try {
-                    // Check if resource exists before loading
-                    if (getClass().getResource(imagePath) != null) {
-                        Image image = new Image(getClass().getResourceAsStream(imagePath));
-                        pieceImages.put(colorName + "_" + typeName, image);
-                    } else {
-                        System.err.println("Image resource not found: " + imagePath);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Failed to load image: " + imagePath);
-                    e.printStackTrace();
-                }
-            }
-        }
-    }
-    
-    private void drawBoard() {
-        boardGrid.getChildren().clear();
-        
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Rectangle square = new Rectangle(currentSquareSize, currentSquareSize);
-                square.setFill((row + col) % 2 == 0 ? Color.BEIGE : Color.BROWN);
-                
-                final int r = row;
-                final int c = col;
-                square.setOnMouseClicked(e -> handleSquareClick(r, c));
-                
-                boardGrid.add(square, col, row);
-                squares[row][col] = square;
-            }
-        }
-    }
-    
     private void resizeBoard() {
         // Calculate the new square size based on the available space
         double availableWidth = getWidth() - getPadding().getLeft() - getPadding().getRight();
@@ -338,67 +335,12 @@ public class ChessBoard extends BorderPane {
         
         if (newSquareSize != currentSquareSize) {
             currentSquareSize = newSquareSize;
-            
-            // Resize all squares
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    squares[row][col].setWidth(currentSquareSize);
-                    squares[row][col].setHeight(currentSquareSize);
-                }
-            }
-            
-            // Refresh the board to resize all pieces
-            refreshBoardUI();
-        }
-    }
-    
-    private void setupPieces() {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(new Position(row, col));
-                if (piece != null) {
-                    addPieceToUI(piece, row, col);
-                }
-            }
-        }
-    }
-    
-    private void addPieceToUI(Piece piece, int row, int col) {
-        String colorName = piece.getColor().toString().toLowerCase();
-        String typeName = piece.getType().toString().toLowerCase();
-        String imageKey = colorName + "_" + typeName;
-        
-        Image pieceImage = pieceImages.get(imageKey);
-        
-        if (pieceImage != null) {
-            ImageView imageView = new ImageView(pieceImage);
-            imageView.setFitWidth(currentSquareSize - 10);
-            imageView.setFitHeight(currentSquareSize - 10);
-            imageView.setMouseTransparent(true);
-            
-            boardGrid.add(imageView, col, row);
-        } else {
-            // Fallback to text representation if image not found
-            Label pieceLabel = new Label(
-                    typeName.substring(0, 1).toUpperCase()
-            );
-            
-            pieceLabel.setStyle("-fx-font-size: " + (currentSquareSize / 2) + "px; -fx-font-weight: bold;");
-            pieceLabel.setTextFill(colorName.equals("white") ? Color.WHITE : Color.BLACK);
-            pieceLabel.setAlignment(Pos.CENTER);
-            pieceLabel.setPrefSize(currentSquareSize, currentSquareSize);
-            pieceLabel.setMouseTransparent(true);
-            
-            boardGrid.add(pieceLabel, col, row);
+            boardView.setSquareSize(currentSquareSize);
         }
     }
     
     private void addCapturedPieceToUI(Piece piece) {
-        String colorName = piece.getColor().toString().toLowerCase();
-        String typeName = piece.getType().toString().toLowerCase();
-        String imageKey = colorName + "_" + typeName;
-        
-        Image pieceImage = pieceImages.get(imageKey);
+        Image pieceImage = PieceImages.get(piece);
         
         if (pieceImage != null) {
             ImageView imageView = new ImageView(pieceImage);
@@ -416,9 +358,11 @@ public class ChessBoard extends BorderPane {
     
     private void handleSquareClick(int row, int col) {
         if (gameEnded) return;
+        // Black's pieces belong to the engine, even while its answer is still on the way
+        if (aiThinking || (gameMode == GameMode.AI && aiEngine != null && currentTurn == PieceColor.BLACK)) return;
         
         System.out.println("Clicked: " + row + "," + col);
-        Position clickedPosition = new Position(row, col);
+        Position clickedPosition = Position.of(row, col);
         
         if (selectedPosition == null) {
             // First click - select a piece
@@ -427,8 +371,7 @@ public class ChessBoard extends BorderPane {
             // Only allow selecting pieces of the current turn's color
             if (piece != null && piece.getColor() == currentTurn) {
                 selectedPosition = clickedPosition;
-                squares[row][col].setStroke(Color.BLUE);
-                squares[row][col].setStrokeWidth(3);
+                boardView.setHighlighted(row, col, true);
                 System.out.println("Selected: " + piece.getType());
             }
         } else {
@@ -438,13 +381,13 @@ public class ChessBoard extends BorderPane {
             Piece piece = board.getPiece(selectedPosition);
             
             // Clear the selection highlight
-            squares[fromRow][fromCol].setStroke(null);
+            boardView.setHighlighted(fromRow, fromCol, false);
             
             if (piece != null) {
                 // Check if the move is valid according to chess rules
                 if (board.isValidMove(selectedPosition, clickedPosition, currentTurn)) {
                     // Check if there's a piece to capture
-                    Piece capturedPiece = board.getPiece(clickedPosition);
+                    Piece capturedPiece = getCapturedPiece(selectedPosition, clickedPosition);
                     if (capturedPiece != null) {
                         // Add to captured pieces list
                         if (currentTurn == PieceColor.WHITE) {
@@ -462,6 +405,7 @@ public class ChessBoard extends BorderPane {
                     
                     // Move the piece on the board model
                     board.movePiece(selectedPosition, clickedPosition);
+                    playedMoves.add(board.getLastMove());
                     
                     // Update the UI
                     refreshBoardUI();
@@ -472,7 +416,7 @@ public class ChessBoard extends BorderPane {
                     currentTurn = (currentTurn == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
                     
                     // Switch timers if time control is enabled
-                    if (timeControlMinutes > 0) {
+                    if (clock != null) {
                         startTimer(currentTurn);
                     }
                     
@@ -488,141 +432,236 @@ public class ChessBoard extends BorderPane {
         }
     }
     
+    // Redraw only the squares the last move changed
     private void refreshBoardUI() {
-        // Clear all piece images and labels from the board
-        boardGrid.getChildren().removeIf(node -> node instanceof ImageView || node instanceof Label && 
-                                        !(node == whiteTimerLabel || node == blackTimerLabel));
+        int lastMove = board.getLastMove();
+        if (lastMove == Move.NONE) {
+            boardView.showPosition(board);
+        } else {
+            boardView.showSquares(board, Move.affectedSquares(lastMove));
+        }
+    }
+    
+    private void makeAIMove() {
+        if (aiRunner == null) {
+            System.err.println("AI engine is null");
+            return;
+        }
         
-        // Keep the squares
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (!boardGrid.getChildren().contains(squares[row][col])) {
-                    boardGrid.add(squares[row][col], col, row);
-                }
+        // Book moves come back at once, without a search or an API call
+        if (openingBook != null) {
+            int bookMove = openingBook.probe(board);
+            if (bookMove != Move.NONE) {
+                System.out.println("Book move: " + Move.toUci(bookMove));
+                applyAIMove(bookMove);
+                return;
             }
         }
-        
-        // Redraw all pieces
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = board.getPiece(new Position(row, col));
-                if (piece != null) {
-                    addPieceToUI(piece, row, col);
-                }
+        // So are moves from the endgame tables, whichever engine is playing
+        if (tablebases != null) {
+            int tableMove = tablebases.bestMove(board);
+            if (tableMove != Move.NONE) {
+                System.out.println("Tablebase move: " + Move.toUci(tableMove));
+                applyAIMove(tableMove);
+                return;
             }
         }
-    }
-    
-    private void makeAIMove() {
-        if (aiEngine != null) {
-            System.out.println("AI is thinking...");
-            try {
-                Position[] move = aiEngine.getNextMove(board, moveHistory);
-                if (move != null && move.length == 2) {
-                    System.out.println("AI suggested move: " + move[0].toChessNotation() + " to " + move[1].toChessNotation());
-                    
-                    // Check if the move is valid
-                    if (board.isValidMove(move[0], move[1], currentTurn)) {
-                        System.out.println("AI move is valid, executing...");
-                        
-                        // Check if there's a piece to capture
-                        Piece capturedPiece = board.getPiece(move[1]);
-                        if (capturedPiece != null) {
-                            // Add to captured pieces list
-                            capturedByBlack.add(capturedPiece);
-                            // Update the UI for captured pieces
-                            addCapturedPieceToUI(capturedPiece);
-                        }
-                        
-                        // Record the move
-                        String moveNotation = move[0].toChessNotation() + move[1].toChessNotation();
-                        moveHistory.add(moveNotation);
-                        
-                        // Move the piece on the board model
-                        board.movePiece(move[0], move[1]);
-                        
-                        // Update the UI
-                        refreshBoardUI();
-                        
-                        System.out.println("AI moved from " + move[0].toChessNotation() + 
-                                          " to " + move[1].toChessNotation());
-                        
-                        // Switch turns back to player
-                        currentTurn = PieceColor.WHITE;
-                        
-                        // Switch active timer
-                        if (timeControlMinutes > 0) {
-                            startTimer(currentTurn);
-                        }
-                    } else {
-                        System.err.println("AI suggested an invalid move: " + 
-                                          move[0].toChessNotation() + " to " + move[1].toChessNotation());
-                        // Try a default move as fallback
+        System.out.println("AI is thinking...");
+        
+        // The answer is only good for the position it was asked about
+        long positionKey = board.getZobristKey();
+        aiThinking = true;
+        aiRunner.requestMove(board, moveHistory, aiMoveBudgetMillis())
+                .whenComplete((move, error) -> Platform.runLater(() -> {
+                    aiThinking = false;
+                    if (gameEnded || currentTurn != PieceColor.BLACK || board.getZobristKey() != positionKey) {
+                        System.out.println("Discarding AI move for a position no longer on the board");
+                        return;
+                    }
+                    if (error != null) {
+                        System.err.println("Error during AI move: " + error);
                         tryDefaultMove();
+                        return;
                     }
-                } else {
-                    System.err.println("AI returned null or incomplete move");
-                    tryDefaultMove();
+                    applyAIMove(move);
+                }));
+    }
+    
+    // Spread black's remaining time over the moves still to play
+    private long aiMoveBudgetMillis() {
+        if (clock == null) {
+            return UNTIMED_AI_MOVE_MILLIS;
+        }
+        // The increment or delay comes back after the move, so most of it can be spent now
+        TimeControl timeControl = clock.getTimeControl();
+        long remaining = clock.getRemainingMillis(PieceColor.BLACK);
+        long bonus = (timeControl.incrementMillis() + timeControl.delayMillis()) * 3 / 4;
+        return Math.min(remaining / 2, Math.max(MIN_AI_MOVE_MILLIS, remaining / MOVES_TO_GO + bonus));
+    }
+    
+    // The move comes packed so that an underpromotion chosen by the engine or the tables
+    // reaches the board as chosen
+    private void applyAIMove(int move) {
+        if (move != Move.NONE) {
+            Position from = Square.toPosition(Move.from(move));
+            Position to = Square.toPosition(Move.to(move));
+            System.out.println("AI suggested move: " + Move.toUci(move));
+            
+            // Check if the move is valid
+            int legalMove = board.getSideToMove() == currentTurn
+                    ? board.findLegalMove(Move.from(move), Move.to(move), Move.promotionType(move)) : Move.NONE;
+            if (legalMove != Move.NONE) {
+                System.out.println("AI move is valid, executing...");
+                
+                // Check if there's a piece to capture
+                Piece capturedPiece = getCapturedPiece(from, to);
+                if (capturedPiece != null) {
+                    // Add to captured pieces list
+                    capturedByBlack.add(capturedPiece);
+                    // Update the UI for captured pieces
+                    addCapturedPieceToUI(capturedPiece);
                 }
-            } catch (Exception e) {
-                System.err.println("Error during AI move: " + e.getMessage());
-                e.printStackTrace();
+                
+                // Record the move
+                moveHistory.add(Move.toUci(legalMove));
+                
+                // Move the piece on the board model
+                board.makeMove(legalMove);
+                playedMoves.add(board.getLastMove());
+                
+                // Update the UI
+                refreshBoardUI();
+                
+                System.out.println("AI moved from " + from.toChessNotation() + 
+                                  " to " + to.toChessNotation());
+                
+                // Switch turns back to player
+                currentTurn = PieceColor.WHITE;
+                
+                // Switch active timer
+                if (clock != null) {
+                    startTimer(currentTurn);
+                }
+            } else {
+                System.err.println("AI suggested an invalid move: " + Move.toUci(move));
+                // Try a default move as fallback
                 tryDefaultMove();
             }
         } else {
-            System.err.println("AI engine is null");
+            System.err.println("AI returned no move");
+            tryDefaultMove();
         }
     }
+    
+    private void cancelAIMove() {
+        if (aiRunner != null) {
+            aiRunner.cancel();
+        }
+    }
+    
+    private void stopClock() {
+        if (clock != null) {
+            clock.stop();
+        }
+        if (clockDisplay != null) {
+            clockDisplay.stop();
+        }
+    }
+    
+    // Stop the clocks and the engine and save the game when it is closed
+    public void dispose() {
+        gameEnded = true;
+        stopClock();
+        if (aiRunner != null) {
+            aiRunner.close();
+        }
+        saveGame();
+    }
+    
+    private void saveGame() {
+        if (playedMoves.isEmpty()) {
+            return;
+        }
+        Path file = GAMES_DIRECTORY.resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".pgn");
+        try {
+            Files.createDirectories(GAMES_DIRECTORY);
+            Files.writeString(file, toPgn());
+            System.out.println("Game saved to " + file);
+        } catch (IOException e) {
+            System.err.println("Could not save the game to " + file + ": " + e.getMessage());
+        }
+    }
+    
+    // The game so far in PGN
+    public String toPgn() {
+        // Mate and stalemate are read off the board; a timeout has set the result already
+        String gameResult = result;
+        if (gameResult.equals("*") && board.generateLegalMoves(new int[MoveGenerator.MAX_MOVES]) == 0) {
+            gameResult = !board.isInCheck() ? "1/2-1/2"
+                    : board.getSideToMove() == PieceColor.WHITE ? "0-1" : "1-0";
+        }
+        
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", gameMode == GameMode.AI ? "Game against the computer" : "Casual game");
+        tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+        tags.put("White", "Player");
+        tags.put("Black", gameMode == GameMode.AI ? "Computer" : "Player 2");
+        if (clock != null) {
+            TimeControl timeControl = clock.getTimeControl();
+            long bonusSeconds = (timeControl.incrementMillis() + timeControl.delayMillis()) / 1000;
+            tags.put("TimeControl", timeControl.initialMillis() / 1000 + (bonusSeconds > 0 ? "+" + bonusSeconds : ""));
+        }
+        int[] moves = playedMoves.stream().mapToInt(Integer::intValue).toArray();
+        return PgnWriter.toPgn(new PgnGame(tags, null, moves, gameResult));
+    }
 
     private void tryDefaultMove() {
         System.out.println("Trying a default move for AI");
-        // Try to find any valid move for a black piece
-        for (int fromRow = 0; fromRow < 8; fromRow++) {
-            for (int fromCol = 0; fromCol < 8; fromCol++) {
-                Position from = new Position(fromRow, fromCol);
-                Piece piece = board.getPiece(from);
-                
-                if (piece != null && piece.getColor() == PieceColor.BLACK) {
-                    // Try all possible destinations
-                    for (int toRow = 0; toRow < 8; toRow++) {
-                        for (int toCol = 0; toCol < 8; toCol++) {
-                            Position to = new Position(toRow, toCol);
-                            
-                            if (board.isValidMove(from, to, PieceColor.BLACK)) {
-                                // Check if there's a piece to capture
-                                Piece capturedPiece = board.getPiece(to);
-                                if (capturedPiece != null) {
-                                    // Add to captured pieces list
-                                    capturedByBlack.add(capturedPiece);
-                                    // Update the UI for captured pieces
-                                    addCapturedPieceToUI(capturedPiece);
-                                }
-                                
-                                // Found a valid move, execute it
-                                String moveNotation = from.toChessNotation() + to.toChessNotation();
-                                moveHistory.add(moveNotation);
-                                
-                                board.movePiece(from, to);
-                                refreshBoardUI();
-                                
-                                System.out.println("Fallback AI moved from " + from.toChessNotation() + 
-                                                  " to " + to.toChessNotation());
-                                
-                                currentTurn = PieceColor.WHITE;
-                                
-                                // Switch active timer
-                                if (timeControlMinutes > 0) {
-                                    startTimer(currentTurn);
-                                }
-                                
-                                return;
-                            }
-                        }
-                    }
-                }
+        // Take the first legal move for black (captures are generated first)
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        if (board.getSideToMove() == PieceColor.BLACK && board.generateLegalMoves(moves) > 0) {
+            Position from = Square.toPosition(Move.from(moves[0]));
+            Position to = Square.toPosition(Move.to(moves[0]));
+            
+            // Check if there's a piece to capture
+            Piece capturedPiece = getCapturedPiece(from, to);
+            if (capturedPiece != null) {
+                // Add to captured pieces list
+                capturedByBlack.add(capturedPiece);
+                // Update the UI for captured pieces
+                addCapturedPieceToUI(capturedPiece);
             }
+            
+            // Found a valid move, execute it
+            String moveNotation = from.toChessNotation() + to.toChessNotation();
+            moveHistory.add(moveNotation);
+            
+            board.movePiece(from, to);
+            playedMoves.add(board.getLastMove());
+            refreshBoardUI();
+            
+            System.out.println("Fallback AI moved from " + from.toChessNotation() + 
+                              " to " + to.toChessNotation());
+            
+            currentTurn = PieceColor.WHITE;
+            
+            // Switch active timer
+            if (clock != null) {
+                startTimer(currentTurn);
+            }
+            
+            return;
         }
         
         System.err.println("Could not find any valid move for AI");
     }
+    
+    // The piece a legal move would capture; en passant takes a pawn off the target square
+    private Piece getCapturedPiece(Position from, Position to) {
+        int move = board.findLegalMove(from, to);
+        if (Move.isEnPassant(move)) {
+            return board.getPiece(Square.of(from.row(), to.col()));
+        }
+        return board.getPiece(to);
+    }
 }
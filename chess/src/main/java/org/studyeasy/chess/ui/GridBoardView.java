@@ -0,0 +1,139 @@
+package org.studyeasy.chess.ui;
+
+import javafx.geometry.HPos;
+import javafx.geometry.Pos;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import org.studyeasy.chess.model.Board;
+import org.studyeasy.chess.model.Piece;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.Square;
+
+import java.util.function.Function;
+
+// The board as a grid of nodes: a square and one pooled ImageView per cell, created once.
+// Showing a position only touches cells whose piece changed, so a move costs a few
+// property updates instead of rebuilding the grid.
+public class GridBoardView extends GridPane implements BoardView {
+    private final Function<Piece, Image> images;
+    private final Rectangle[][] squares = new Rectangle[8][8];
+    private final ImageView[][] pieceViews = new ImageView[8][8];
+    // Text stand-ins for pieces without an image, created the first time a cell needs one
+    private final Label[][] pieceLabels = new Label[8][8];
+    // What each cell currently shows
+    private final Piece[][] shownPieces = new Piece[8][8];
+    private int squareSize;
+
+    public GridBoardView(int squareSize, Function<Piece, Image> images, SquareClickHandler clickHandler) {
+        this.squareSize = squareSize;
+        this.images = images;
+        setHgap(0);
+        setVgap(0);
+        setAlignment(Pos.CENTER);
+
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Rectangle square = new Rectangle(squareSize, squareSize);
+                square.setFill((row + col) % 2 == 0 ? Color.BEIGE : Color.BROWN);
+                final int r = row;
+                final int c = col;
+                square.setOnMouseClicked(e -> clickHandler.squareClicked(r, c));
+                add(square, col, row);
+                squares[row][col] = square;
+
+                ImageView view = new ImageView();
+                view.setFitWidth(squareSize - 10);
+                view.setFitHeight(squareSize - 10);
+                view.setMouseTransparent(true);
+                GridPane.setHalignment(view, HPos.CENTER);
+                GridPane.setValignment(view, VPos.CENTER);
+                add(view, col, row);
+                pieceViews[row][col] = view;
+            }
+        }
+    }
+
+    @Override
+    public Node getNode() {
+        return this;
+    }
+
+    @Override
+    public void showPosition(Board board) {
+        showSquares(board, -1L);
+    }
+
+    @Override
+    public void showSquares(Board board, long squareMask) {
+        while (squareMask != 0) {
+            int square = Long.numberOfTrailingZeros(squareMask);
+            squareMask &= squareMask - 1;
+            int row = Square.row(square);
+            int col = Square.col(square);
+            Piece piece = board.getPiece(square);
+            if (piece != shownPieces[row][col]) {
+                showPiece(row, col, piece);
+            }
+        }
+    }
+
+    @Override
+    public void setSquareSize(int size) {
+        if (size == squareSize) {
+            return;
+        }
+        squareSize = size;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                squares[row][col].setWidth(size);
+                squares[row][col].setHeight(size);
+                pieceViews[row][col].setFitWidth(size - 10);
+                pieceViews[row][col].setFitHeight(size - 10);
+                if (pieceLabels[row][col] != null) {
+                    styleLabel(pieceLabels[row][col]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setHighlighted(int row, int col, boolean highlighted) {
+        squares[row][col].setStroke(highlighted ? Color.BLUE : null);
+        squares[row][col].setStrokeWidth(highlighted ? 3 : 1);
+    }
+
+    private void showPiece(int row, int col, Piece piece) {
+        shownPieces[row][col] = piece;
+        Image image = piece != null ? images.apply(piece) : null;
+        pieceViews[row][col].setImage(image);
+
+        // Fall back to a text representation if the image is not available
+        Label label = pieceLabels[row][col];
+        if (piece != null && image == null) {
+            if (label == null) {
+                label = new Label();
+                label.setAlignment(Pos.CENTER);
+                label.setMouseTransparent(true);
+                styleLabel(label);
+                add(label, col, row);
+                pieceLabels[row][col] = label;
+            }
+            label.setText(piece.getType().toString().substring(0, 1));
+            label.setTextFill(piece.getColor() == PieceColor.WHITE ? Color.WHITE : Color.BLACK);
+            label.setVisible(true);
+        } else if (label != null) {
+            label.setVisible(false);
+        }
+    }
+
+    private void styleLabel(Label label) {
+        label.setStyle("-fx-font-size: " + (squareSize / 2) + "px; -fx-font-weight: bold;");
+        label.setPrefSize(squareSize, squareSize);
+    }
+}
@@ -10,11 +10,20 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import org.studyeasy.chess.ai.ChessEngine;
+import org.studyeasy.chess.ai.LocalChessEngine;
+import org.studyeasy.chess.ai.OpenAIChessEngine;
+import org.studyeasy.chess.model.TimeControl;
 
 public class MainMenu extends VBox {
     private final Stage primaryStage;
     private PasswordField apiKeyField;
     private ComboBox<Integer> timeControlComboBox;
+    private ComboBox<Integer> incrementComboBox;
+    private ComboBox<IncrementType> incrementTypeComboBox;
+    private ComboBox<EngineType> engineComboBox;
+    private ComboBox<Integer> threadsComboBox;
+    private ComboBox<RendererType> rendererComboBox;
     
     public MainMenu(Stage primaryStage) {
         this.primaryStage = primaryStage;
@@ -36,6 +45,25 @@ public class MainMenu extends VBox {
         apiKeyField.setPrefWidth(300);
         apiKeyBox.getChildren().addAll(apiKeyLabel, apiKeyField);
         
+        // Engine selection
+        HBox engineBox = new HBox(10);
+        engineBox.setAlignment(Pos.CENTER);
+        Label engineLabel = new Label("AI Engine:");
+        engineComboBox = new ComboBox<>(FXCollections.observableArrayList(EngineType.values()));
+        engineComboBox.setValue(EngineType.LOCAL);
+        engineBox.getChildren().addAll(engineLabel, engineComboBox);
+        
+        // Search threads for the local engine
+        HBox threadsBox = new HBox(10);
+        threadsBox.setAlignment(Pos.CENTER);
+        Label threadsLabel = new Label("Engine threads:");
+        threadsComboBox = new ComboBox<>();
+        for (int threads = 1; threads <= LocalChessEngine.DEFAULT_THREADS; threads++) {
+            threadsComboBox.getItems().add(threads);
+        }
+        threadsComboBox.setValue(LocalChessEngine.DEFAULT_THREADS);
+        threadsBox.getChildren().addAll(threadsLabel, threadsComboBox);
+        
         // Time control selection
         HBox timeControlBox = new HBox(10);
         timeControlBox.setAlignment(Pos.CENTER);
@@ -47,17 +75,42 @@ public class MainMenu extends VBox {
         timeControlComboBox.setPromptText("Select time");
         timeControlBox.getChildren().addAll(timeControlLabel, timeControlComboBox);
         
+        // Time given back after every move
+        HBox incrementBox = new HBox(10);
+        incrementBox.setAlignment(Pos.CENTER);
+        Label incrementLabel = new Label("Increment (seconds):");
+        incrementComboBox = new ComboBox<>(FXCollections.observableArrayList(
+            0, 1, 2, 3, 5, 10, 15, 30
+        ));
+        incrementComboBox.setValue(0);
+        incrementTypeComboBox = new ComboBox<>(FXCollections.observableArrayList(IncrementType.values()));
+        incrementTypeComboBox.setValue(IncrementType.FISCHER);
+        incrementBox.getChildren().addAll(incrementLabel, incrementComboBox, incrementTypeComboBox);
+        
+        // Board renderer; the canvas one is lighter on slow machines
+        HBox rendererBox = new HBox(10);
+        rendererBox.setAlignment(Pos.CENTER);
+        Label rendererLabel = new Label("Board renderer:");
+        rendererComboBox = new ComboBox<>(FXCollections.observableArrayList(RendererType.values()));
+        rendererComboBox.setValue(RendererType.NODES);
+        rendererBox.getChildren().addAll(rendererLabel, rendererComboBox);
+        
         playWithFriendButton.setOnAction(e -> startGame(GameMode.FRIEND, null));
         playWithAIButton.setOnAction(e -> {
+            if (engineComboBox.getValue() == EngineType.LOCAL) {
+                startGame(GameMode.AI, new LocalChessEngine(threadsComboBox.getValue()));
+                return;
+            }
+            
             String apiKey = apiKeyField.getText();
             if (apiKey == null || apiKey.trim().isEmpty()) {
                 showError("Please enter an OpenAI API key");
             } else {
-                startGame(GameMode.AI, apiKey);
+                startGame(GameMode.AI, new OpenAIChessEngine(apiKey));
             }
         });
         
-        getChildren().addAll(playWithFriendButton, playWithAIButton, apiKeyBox, timeControlBox);
+        getChildren().addAll(playWithFriendButton, playWithAIButton, engineBox, threadsBox, apiKeyBox, timeControlBox, incrementBox, rendererBox);
     }
     
     private void showError(String message) {
@@ -72,23 +125,75 @@ public class MainMenu extends VBox {
         getChildren().add(errorLabel);
     }
     
-    private void startGame(GameMode mode, String apiKey) {
+    private void startGame(GameMode mode, ChessEngine engine) {
         // Get the selected time control
         int timeControlMinutes = timeControlComboBox.getValue();
+        int incrementSeconds = incrementComboBox.getValue();
+        TimeControl timeControl = incrementTypeComboBox.getValue() == IncrementType.BRONSTEIN
+                ? TimeControl.bronstein(timeControlMinutes, incrementSeconds)
+                : TimeControl.fischer(timeControlMinutes, incrementSeconds);
         
-        // Create the chess board with the appropriate mode, API key, and time control
+        // Create the chess board with the appropriate mode, engine, and time control
+        RendererType rendererType = rendererComboBox.getValue();
         ChessBoard chessBoard;
-        if (mode == GameMode.AI && apiKey != null) {
-            chessBoard = new ChessBoard(mode, apiKey, timeControlMinutes);
+        if (mode == GameMode.AI && engine != null) {
+            chessBoard = new ChessBoard(mode, engine, timeControl, rendererType);
         } else {
-            chessBoard = new ChessBoard(mode, timeControlMinutes);
+            chessBoard = new ChessBoard(mode, timeControl, rendererType);
         }
         
         Scene gameScene = new Scene(chessBoard, 800, 800);
         primaryStage.setScene(gameScene);
+        // Closing the window abandons any AI move still being computed
+        primaryStage.setOnHidden(e -> chessBoard.dispose());
     }
     
     public enum GameMode {
         FRIEND, AI
     }
-}
\ No newline at end of file
+    
+    public enum EngineType {
+        LOCAL("Local engine"), OPENAI("OpenAI GPT-4o");
+        
+        private final String displayName;
+        
+        EngineType(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+    
+    public enum IncrementType {
+        FISCHER("Fischer increment"), BRONSTEIN("Bronstein delay");
+        
+        private final String displayName;
+        
+        IncrementType(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+    
+    public enum RendererType {
+        NODES("Standard"), CANVAS("Canvas (low-end hardware)");
+        
+        private final String displayName;
+        
+        RendererType(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.studyeasy.chess.ui;
+
+import javafx.scene.image.Image;
+import org.studyeasy.chess.model.Piece;
+import org.studyeasy.chess.model.PieceColor;
+import org.studyeasy.chess.model.PieceType;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+// Piece images shared by every board in the application, decoded once. ChessApplication
+// starts decoding in the background while the main menu is showing, so a new game finds
+// the images ready.
+public final class PieceImages {
+    // Indexed by color * 6 + type; null where an image could not be loaded
+    private static final Image[] IMAGES = new Image[12];
+    private static CompletableFuture<Void> loading;
+
+    private PieceImages() {
+    }
+
+    // Start decoding on a background thread; later calls return the same load
+    public static synchronized CompletableFuture<Void> preload() {
+        if (loading == null) {
+            loading = CompletableFuture.runAsync(PieceImages::loadAll, runnable -> {
+                Thread thread = new Thread(runnable, "piece-image-loader");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return loading;
+    }
+
+    // The image for a piece, or null if it is missing; waits for a load still in progress
+    public static Image get(PieceColor color, PieceType type) {
+        // Completing the load publishes the array to the threads that wait on it
+        preload().join();
+        return IMAGES[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    public static Image get(Piece piece) {
+        return get(piece.getColor(), piece.getType());
+    }
+
+    private static void loadAll() {
+        long start = System.nanoTime();
+        for (PieceColor color : PieceColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                String imagePath = "/images/chess/" + color.toString().toLowerCase() + "_" + type.toString().toLowerCase() + ".png";
+                try (InputStream in = PieceImages.class.getResourceAsStream(imagePath)) {
+                    if (in != null) {
+                        IMAGES[color.ordinal() * 6 + type.ordinal()] = new Image(in);
+                    } else {
+                        System.err.println("Image resource not found: " + imagePath);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to load image: " + imagePath);
+                    e.printStackTrace();
+                }
+            }
+        }
+        System.out.println("Piece images loaded in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
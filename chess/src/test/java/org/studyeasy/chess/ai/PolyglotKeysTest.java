@@ -0,0 +1,50 @@
+package org.studyeasy.chess.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.studyeasy.chess.model.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PolyglotKeysTest {
+
+    @Test
+    void startPositionMatchesPolyglot() {
+        assertEquals(0x463b96181691fc9cL, PolyglotKeys.key(new Board()));
+    }
+
+    // The test positions from the Polyglot book format description
+    @Test
+    void publishedKeysMatch() {
+        assertKey(0x463b96181691fc9cL, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertKey(0x823c9b50fd114196L, "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        assertKey(0x0756b94461c50fb0L, "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2");
+        assertKey(0x662fafb965db29d4L, "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2");
+        assertKey(0x22a48b5a8e47ff78L, "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertKey(0x652a607ca3f242c1L, "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3");
+        assertKey(0x00fdd303c946bdd9L, "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4");
+        assertKey(0x3c8123ea7b067637L, "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3");
+        assertKey(0x5c3f9b829b279560L, "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4");
+    }
+
+    @Test
+    void builtBookUsesPolyglotKeys(@TempDir Path dir) throws IOException {
+        Path pgn = dir.resolve("games.pgn");
+        Files.writeString(pgn, "[Result \"1/2-1/2\"]\n\n1. e4 e5 1/2-1/2\n");
+        Path book = dir.resolve("book.bin");
+
+        assertEquals(2, OpeningBook.build(pgn, book, 2, 1));
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(book));
+        assertEquals(0x463b96181691fc9cL, entries.getLong(0));
+        assertEquals(0x823c9b50fd114196L, entries.getLong(16));
+    }
+
+    private static void assertKey(long expected, String fen) {
+        assertEquals(expected, PolyglotKeys.key(Board.fromFen(fen)), fen);
+    }
+}
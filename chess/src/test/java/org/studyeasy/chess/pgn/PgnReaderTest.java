@@ -0,0 +1,45 @@
+package org.studyeasy.chess.pgn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.studyeasy.chess.model.Move;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PgnReaderTest {
+
+    @Test
+    void readsCastlingWrittenWithZeros(@TempDir Path dir) throws IOException {
+        Path pgn = dir.resolve("games.pgn");
+        Files.writeString(pgn, """
+                [Event "Zeros"]
+                [Result "1-0"]
+
+                1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. 0-0 d6 5. d4 Bg4 6. Nc3 Qd7
+                7. Be3 0-0-0 8. a3 Kb8 1-0
+
+                [Event "Letters"]
+                [Result "0-1"]
+
+                1. e4 e5 2. Nf3 Nc6 3. Bc4 Nf6 4. O-O Be7 5. d3 O-O 0-1
+                """);
+
+        List<PgnGame> games = new CopyOnWriteArrayList<>();
+        PgnReader.Summary summary = new PgnReader(pgn).read(games::add);
+
+        assertEquals(2, summary.games());
+        assertEquals(0, summary.skipped());
+        PgnGame zeros = games.stream().filter(game -> game.tags().get("Event").equals("Zeros")).findFirst().orElseThrow();
+        assertEquals(16, zeros.moves().length);
+        assertEquals("1-0", zeros.result());
+        assertTrue(Move.isCastle(zeros.moves()[6]));
+        assertTrue(Move.isCastle(zeros.moves()[13]));
+    }
+}